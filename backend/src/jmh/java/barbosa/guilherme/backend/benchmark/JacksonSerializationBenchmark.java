@@ -0,0 +1,72 @@
+package barbosa.guilherme.backend.benchmark;
+
+import barbosa.guilherme.backend.model.Category;
+import barbosa.guilherme.backend.model.Product;
+import barbosa.guilherme.backend.model.Stock;
+import barbosa.guilherme.backend.responses.ProductResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serialization cost of the list endpoints' bodies, with the ObjectMapper configured the way Spring Boot does
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonSerializationBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Product> products;
+    private List<Stock> stock;
+    private List<ProductResponse> productResponses;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        LocalDateTime now = LocalDateTime.now();
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            categories.add(Category.builder().id((long) i).name("Category " + i).slug("category-" + i)
+                    .createdAt(now).updatedAt(now).version(0L).build());
+        }
+
+        products = new ArrayList<>(size);
+        stock = new ArrayList<>(size);
+        productResponses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Category category = categories.get(i % categories.size());
+            Product product = Product.builder().id((long) i).name("Product " + i)
+                    .description("Description of product " + i).price(10.0 + i).category(category).version(0L).build();
+            products.add(product);
+            stock.add(Stock.builder().id((long) i).product(product).quantity(i % 100)
+                    .createdAt(now).updatedAt(now).version(0L).build());
+            productResponses.add(new ProductResponse(product.getId(), product.getName(), product.getDescription(),
+                    product.getPrice(), 0L, category.getId(), category.getName(), category.getSlug()));
+        }
+    }
+
+    @Benchmark
+    public byte[] products() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] stock() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(stock);
+    }
+
+    @Benchmark
+    public byte[] productResponses() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(productResponses);
+    }
+}
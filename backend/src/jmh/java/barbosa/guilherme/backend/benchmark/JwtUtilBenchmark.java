@@ -0,0 +1,57 @@
+package barbosa.guilherme.backend.benchmark;
+
+import barbosa.guilherme.backend.util.JwtUtil;
+import barbosa.guilherme.backend.util.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+    static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-key";
+
+    private JwtUtil cachingJwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingJwtUtil = jwtUtil(10_000);
+        // A zero-sized cache makes every verify pay for the HMAC check and claims parsing
+        uncachedJwtUtil = jwtUtil(0);
+        token = cachingJwtUtil.generateToken("user@example.com", List.of("USER"));
+        cachingJwtUtil.verify(token);
+    }
+
+    static JwtUtil jwtUtil(int cacheMaxSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationInMs", 3_600_000);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachingJwtUtil.generateToken("user@example.com", List.of("USER", "ADMIN"));
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verifyCached() {
+        return cachingJwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verifyUncached() {
+        return uncachedJwtUtil.verify(token);
+    }
+}
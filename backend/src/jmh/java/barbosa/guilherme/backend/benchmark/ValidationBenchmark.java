@@ -0,0 +1,32 @@
+package barbosa.guilherme.backend.benchmark;
+
+import barbosa.guilherme.backend.service.CategoryService;
+import barbosa.guilherme.backend.service.UserService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// String work on the write paths: category slug generation and the password strength check in register
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    @Param({"Home Office", "Eletrônicos e Informática para Escritório"})
+    public String categoryName;
+
+    @Param({"weak", "Str0ngPassword", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa1"})
+    public String password;
+
+    @Benchmark
+    public String slugify() {
+        return CategoryService.slugify(categoryName);
+    }
+
+    @Benchmark
+    public boolean strongPassword() {
+        return UserService.isStrongPassword(password);
+    }
+}
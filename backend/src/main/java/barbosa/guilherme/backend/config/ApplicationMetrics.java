@@ -0,0 +1,90 @@
+package barbosa.guilherme.backend.config;
+
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.responses.CacheStats;
+import barbosa.guilherme.backend.responses.CategoryCacheStats;
+import barbosa.guilherme.backend.responses.ConflictStats;
+import barbosa.guilherme.backend.service.CategoryService;
+import barbosa.guilherme.backend.service.OptimisticRetryExecutor;
+import barbosa.guilherme.backend.service.PasswordHashingExecutor;
+import barbosa.guilherme.backend.util.JwtUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+// Publishes the counters behind /stats/** as meters, so they can be scraped alongside the rest
+@Component
+public class ApplicationMetrics implements MeterBinder {
+    private final JwtUtil jwtUtil;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final CategoryService categoryService;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final Optional<VirtualThreadPinningMonitor> pinningMonitor;
+
+    public ApplicationMetrics(JwtUtil jwtUtil, PasswordHashingExecutor passwordHashingExecutor,
+                              CategoryService categoryService, OptimisticRetryExecutor optimisticRetryExecutor,
+                              Optional<VirtualThreadPinningMonitor> pinningMonitor) {
+        this.jwtUtil = jwtUtil;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.categoryService = categoryService;
+        this.optimisticRetryExecutor = optimisticRetryExecutor;
+        this.pinningMonitor = pinningMonitor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Every verification is either a cache hit or a full signature check
+        FunctionCounter.builder("jwt.verifications", jwtUtil, JwtUtil::cacheHits).tag("cache", "hit").register(registry);
+        FunctionCounter.builder("jwt.verifications", jwtUtil, JwtUtil::cacheMisses).tag("cache", "miss").register(registry);
+        Gauge.builder("jwt.cache.size", jwtUtil, JwtUtil::cacheSize).register(registry);
+
+        Gauge.builder("password.hashing.queue", passwordHashingExecutor, h -> h.stats().queueDepth()).register(registry);
+        Gauge.builder("password.hashing.active", passwordHashingExecutor, h -> h.stats().activeHashes()).register(registry);
+        FunctionCounter.builder("password.hashing.completed", passwordHashingExecutor, h -> h.stats().completed()).register(registry);
+        FunctionCounter.builder("password.hashing.rejected", passwordHashingExecutor, h -> h.stats().rejected()).register(registry);
+        Gauge.builder("password.hashing.average", passwordHashingExecutor, h -> h.stats().averageHashMillis())
+                .baseUnit("milliseconds").register(registry);
+
+        bindCache(registry, "list", CategoryCacheStats::list);
+        bindCache(registry, "by-id", CategoryCacheStats::byId);
+
+        for (EntityType type : EntityType.values()) {
+            bindConflicts(registry, type, "conflict", ConflictStats::conflicts);
+            bindConflicts(registry, type, "retry", ConflictStats::retries);
+            bindConflicts(registry, type, "exhausted", ConflictStats::exhausted);
+            bindConflicts(registry, type, "precondition-failed", ConflictStats::preconditionFailures);
+        }
+
+        pinningMonitor.ifPresent(monitor -> {
+            FunctionCounter.builder("virtual.threads.pinned", monitor, m -> m.stats().events()).register(registry);
+            FunctionCounter.builder("virtual.threads.pinned.time", monitor, m -> m.stats().totalPinnedMillis())
+                    .baseUnit("milliseconds").register(registry);
+        });
+    }
+
+    private void bindCache(MeterRegistry registry, String cache, Function<CategoryCacheStats, CacheStats> select) {
+        FunctionCounter.builder("category.cache.requests", categoryService, s -> select.apply(s.cacheStats()).hits())
+                .tag("cache", cache).tag("result", "hit").register(registry);
+        FunctionCounter.builder("category.cache.requests", categoryService, s -> select.apply(s.cacheStats()).misses())
+                .tag("cache", cache).tag("result", "miss").register(registry);
+        FunctionCounter.builder("category.cache.evictions", categoryService, s -> select.apply(s.cacheStats()).evictions())
+                .tag("cache", cache).register(registry);
+        Gauge.builder("category.cache.size", categoryService, s -> select.apply(s.cacheStats()).size())
+                .tag("cache", cache).register(registry);
+    }
+
+    private void bindConflicts(MeterRegistry registry, EntityType type, String outcome,
+                               ToDoubleFunction<ConflictStats> value) {
+        FunctionCounter.builder("optimistic.lock.events", optimisticRetryExecutor,
+                        executor -> value.applyAsDouble(executor.stats().get(type)))
+                .tag("entity", type.name().toLowerCase())
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
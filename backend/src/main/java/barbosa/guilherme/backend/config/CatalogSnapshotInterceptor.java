@@ -0,0 +1,55 @@
+package barbosa.guilherme.backend.config;
+
+import barbosa.guilherme.backend.service.CatalogSnapshotService;
+import barbosa.guilherme.backend.service.CatalogSnapshotService.CatalogRoute;
+import barbosa.guilherme.backend.service.CatalogSnapshotService.Snapshot;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.Optional;
+
+// Answers plain GETs of a catalog list from its pre-serialized snapshot, skipping the controller entirely
+public class CatalogSnapshotInterceptor implements HandlerInterceptor {
+    private final CatalogSnapshotService snapshots;
+    private final CatalogRoute route;
+
+    public CatalogSnapshotInterceptor(CatalogSnapshotService snapshots, CatalogRoute route) {
+        this.snapshots = snapshots;
+        this.route = route;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        // Any query parameter selects a different representation than the one we keep
+        if (!HttpMethod.GET.matches(request.getMethod()) || request.getQueryString() != null) return true;
+        Optional<Snapshot> current = snapshots.current(route);
+        if (current.isEmpty()) return true;
+
+        Snapshot snapshot = current.get();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePublic().getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = snapshot.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+        // Each coding has its own ETag, so a 304 always confirms the bytes the client actually holds
+        String etag = gzip ? snapshot.gzipEtag() : snapshot.etag();
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) return false;
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        byte[] body = snapshot.json();
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = snapshot.gzip();
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        return false;
+    }
+}
@@ -0,0 +1,59 @@
+package barbosa.guilherme.backend.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+// Latency histogram and Hibernate statement count per controller method
+public class ControllerMetricsInterceptor implements HandlerInterceptor {
+    private static final String SAMPLE_ATTRIBUTE = ControllerMetricsInterceptor.class.getName() + ".sample";
+
+    private final MeterRegistry registry;
+    private final HibernateStatementCounter statementCounter;
+
+    public ControllerMetricsInterceptor(MeterRegistry registry, HibernateStatementCounter statementCounter) {
+        this.registry = registry;
+        this.statementCounter = statementCounter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) return true;
+        // Async handlers come back through here on redispatch; keep timing from the first dispatch
+        if (request.getAttribute(SAMPLE_ATTRIBUTE) == null) {
+            request.setAttribute(SAMPLE_ATTRIBUTE, Timer.start(registry));
+        }
+        statementCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) return;
+        Timer.Sample sample = (Timer.Sample) request.getAttribute(SAMPLE_ATTRIBUTE);
+        if (sample == null) return;
+
+        Tags tags = Tags.of(
+                "controller", handlerMethod.getBeanType().getSimpleName(),
+                "method", handlerMethod.getMethod().getName());
+        sample.stop(Timer.builder("http.controller.requests")
+                .description("Time spent handling a request, by controller method")
+                .tags(tags)
+                .tag("status", String.valueOf(response.getStatus()))
+                .tag("exception", ex == null ? "none" : ex.getClass().getSimpleName())
+                .publishPercentileHistogram()
+                .register(registry));
+        DistributionSummary.builder("http.controller.statements")
+                .description("SQL statements prepared by Hibernate while handling a request")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1000.0)
+                .register(registry)
+                .record(statementCounter.count());
+    }
+}
@@ -0,0 +1,22 @@
+package barbosa.guilherme.backend.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Counts the SQL Hibernate prepares on the current thread; JdbcTemplate statements bypass it and are not included
+public class HibernateStatementCounter implements StatementInspector {
+    private final ThreadLocal<int[]> count = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        count.get()[0]++;
+        return sql;
+    }
+
+    public void reset() {
+        count.get()[0] = 0;
+    }
+
+    public int count() {
+        return count.get()[0];
+    }
+}
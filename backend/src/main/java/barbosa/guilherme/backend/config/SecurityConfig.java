@@ -1,7 +1,9 @@
 package barbosa.guilherme.backend.config;
 
+import org.springframework.boot.web.context.WebServerApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -11,6 +13,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.web.context.support.WebApplicationContextUtils;
 
 @Configuration
 @EnableWebSecurity
@@ -21,6 +24,23 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
+    //Probes and the Prometheus scraper carry no token; the actuator only listens on the management port, which the
+    //public chain below never sees (its path matchers cannot resolve the management context's own servlet).
+    //Matched by the serving context rather than the configured port, which is 0 when a random one is picked
+    @Bean
+    @Order(1)
+    public SecurityFilterChain managementFilterChain(HttpSecurity http) throws Exception {
+        http.securityMatcher(request -> WebServerApplicationContext.hasServerNamespace(
+                        WebApplicationContextUtils.getWebApplicationContext(request.getServletContext()), "management"))
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(authz -> authz
+                        .requestMatchers(request -> HttpMethod.GET.matches(request.getMethod())).permitAll()
+                        .anyRequest().denyAll())
+                .sessionManagement(management -> management.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http, JwtRequestFilter jwtRequestFilter) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
@@ -29,13 +49,24 @@ public class SecurityConfig {
                         //To register/login
                         .requestMatchers("/users/register", "/users/login").permitAll()
 
-                        //List users requires admin (authenticated)
-                        .requestMatchers(HttpMethod.GET, "/users").authenticated()
+                        //User administration and operational stats require admin, decided from the token roles
+                        .requestMatchers(HttpMethod.GET, "/users", "/users/find/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.DELETE, "/users/delete/**").hasRole("ADMIN")
+                        //Updates take any id in the body, so they could rewrite another account's email or password
+                        .requestMatchers(HttpMethod.PUT, "/users").hasRole("ADMIN")
+                        .requestMatchers("/stats/**").hasRole("ADMIN")
+
+                        //Stock history exposes who moved what
+                        .requestMatchers(HttpMethod.GET, "/stock/*/movements", "/stock/*/quantity-at").authenticated()
+
+                        //Full exports are long-running dumps of every row
+                        .requestMatchers(HttpMethod.GET, "/products/export", "/stock/export").authenticated()
 
                         //To some GET requests
                         .requestMatchers(HttpMethod.GET, "/products/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/categories/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/stock/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/dashboard").permitAll()
 
                         //Any others request
                         .anyRequest().authenticated()
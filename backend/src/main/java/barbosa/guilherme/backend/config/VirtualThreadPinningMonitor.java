@@ -0,0 +1,119 @@
+package barbosa.guilherme.backend.config;
+
+import barbosa.guilherme.backend.responses.PinningSite;
+import barbosa.guilherme.backend.responses.PinningStats;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Listens to the JFR jdk.VirtualThreadPinned event while the "virtual" profile is active and groups the pinned
+ * time by call site: the frame that blocked plus the closest frame of our own code, so a pin inside a driver
+ * still points at the service that led there.
+ */
+@Component
+@Profile("virtual")
+public class VirtualThreadPinningMonitor {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String OWN_PACKAGE = "barbosa.guilherme.backend.";
+    private static final String OTHER_SITES = "(other)";
+
+    private final Duration threshold;
+    private final int maxSites;
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${virtual-threads.pinning-threshold-ms}") long thresholdMs,
+                                       @Value("${virtual-threads.pinning-max-sites}") int maxSites) {
+        this.threshold = Duration.ofMillis(thresholdMs);
+        this.maxSites = maxSites;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::record);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) stream.close();
+    }
+
+    public PinningStats stats() {
+        List<PinningSite> bySite = sites.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparingLong(PinningSite::totalPinnedMillis).reversed())
+                .toList();
+        return new PinningStats(threshold.toMillis(), events.sum(), Duration.ofNanos(pinnedNanos.sum()).toMillis(), bySite);
+    }
+
+    private void record(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        events.increment();
+        pinnedNanos.add(nanos);
+
+        String key = siteOf(event.getStackTrace());
+        Site site = sites.get(key);
+        if (site == null) {
+            // Keeps the map bounded when pins come from many different places
+            site = sites.size() < maxSites
+                    ? sites.computeIfAbsent(key, k -> new Site())
+                    : sites.computeIfAbsent(OTHER_SITES, k -> new Site());
+        }
+        site.add(nanos);
+    }
+
+    private static String siteOf(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) return "(no stack trace)";
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        String top = describe(frames.get(0));
+        for (RecordedFrame frame : frames) {
+            if (frame.getMethod().getType().getName().startsWith(OWN_PACKAGE)) {
+                String own = describe(frame);
+                return own.equals(top) ? top : top + " <- " + own;
+            }
+        }
+        return top;
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private static final class Site {
+        private final LongAdder events = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void add(long nanos) {
+            events.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private PinningSite snapshot(String site) {
+            return new PinningSite(site, events.sum(), Duration.ofNanos(totalNanos.sum()).toMillis(),
+                    Duration.ofNanos(maxNanos.get()).toMillis());
+        }
+    }
+}
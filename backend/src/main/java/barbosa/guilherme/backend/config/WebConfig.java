@@ -0,0 +1,32 @@
+package barbosa.guilherme.backend.config;
+
+import barbosa.guilherme.backend.service.CatalogSnapshotService;
+import barbosa.guilherme.backend.service.CatalogSnapshotService.CatalogRoute;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final MeterRegistry meterRegistry;
+    private final HibernateStatementCounter statementCounter;
+
+    public WebConfig(CatalogSnapshotService catalogSnapshotService, MeterRegistry meterRegistry,
+                     HibernateStatementCounter statementCounter) {
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.meterRegistry = meterRegistry;
+        this.statementCounter = statementCounter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // First, so requests answered from a snapshot are timed as well
+        registry.addInterceptor(new ControllerMetricsInterceptor(meterRegistry, statementCounter));
+        registry.addInterceptor(new CatalogSnapshotInterceptor(catalogSnapshotService, CatalogRoute.PRODUCTS))
+                .addPathPatterns("/products");
+        registry.addInterceptor(new CatalogSnapshotInterceptor(catalogSnapshotService, CatalogRoute.CATEGORIES))
+                .addPathPatterns("/categories");
+    }
+}
@@ -0,0 +1,36 @@
+package barbosa.guilherme.backend.controller;
+
+import barbosa.guilherme.backend.requests.BatchRequestBody;
+import barbosa.guilherme.backend.responses.BatchOperationResult;
+import barbosa.guilherme.backend.responses.BatchResponse;
+import barbosa.guilherme.backend.service.BatchService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/batch")
+public class BatchController {
+    private final BatchService service;
+
+    public BatchController(BatchService service) {
+        this.service = service;
+    }
+
+    @PostMapping
+    public ResponseEntity<BatchResponse> execute(@RequestBody @Valid BatchRequestBody batchRequestBody,
+                                                 Authentication authentication) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        BatchResponse response = service.execute(batchRequestBody, admin);
+        if (response.committed()) return ResponseEntity.ok(response);
+
+        // A rolled back batch answers with the status of the operation that failed
+        List<BatchOperationResult> results = response.results();
+        return ResponseEntity.status(results.get(results.size() - 1).status()).body(response);
+    }
+}
@@ -1,14 +1,21 @@
 package barbosa.guilherme.backend.controller;
 
+import barbosa.guilherme.backend.event.EntityType;
 import barbosa.guilherme.backend.service.CategoryService;
+import barbosa.guilherme.backend.service.TableVersionRegistry;
 import barbosa.guilherme.backend.model.Category;
 import barbosa.guilherme.backend.requests.CategoryPostRequestBody;
 import barbosa.guilherme.backend.requests.CategoryPutRequestBody;
+import barbosa.guilherme.backend.responses.BatchLookupResponse;
+import barbosa.guilherme.backend.util.IfMatch;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -17,20 +24,36 @@ import java.util.List;
 @RequestMapping("/categories")
 public class CategoryController {
     private final CategoryService service;
+    private final TableVersionRegistry versions;
 
     @Autowired
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, TableVersionRegistry versions) {
         this.service = categoryService;
+        this.versions = versions;
     }
 
     @GetMapping
-    public ResponseEntity<List<Category>> getAllCategories() {
-        return ResponseEntity.ok(service.listAll());
+    public ResponseEntity<List<?>> getAllCategories(@RequestParam(required = false) String fields, WebRequest request) {
+        String etag = versions.etag(EntityType.CATEGORY);
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePublic())
+                .body(fields == null ? service.listAll() : service.listAll(fields));
+    }
+
+    @GetMapping(path = "/find")
+    public ResponseEntity<BatchLookupResponse<Category>> findByIds(@RequestParam List<Long> ids, WebRequest request) {
+        String etag = versions.etag(EntityType.CATEGORY);
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePublic())
+                .body(service.findByIds(ids));
     }
 
     @GetMapping(path = "/find/{id}")
-    public ResponseEntity<Category> findById(@PathVariable long id) {
-        return ResponseEntity.ok(service.findByIdOrThrowBadRequestException(id));
+    public ResponseEntity<Category> findById(@PathVariable long id, WebRequest request) {
+        String etag = versions.etag(EntityType.CATEGORY);
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePublic())
+                .body(service.findByIdOrThrowBadRequestException(id));
     }
 
     @PostMapping(path = "/add")
@@ -45,8 +68,9 @@ public class CategoryController {
     }
 
     @PutMapping
-    public ResponseEntity<Category> update(@RequestBody @Valid CategoryPutRequestBody categoryPutRequestBody) {
-        service.update(categoryPutRequestBody);
+    public ResponseEntity<Category> update(@RequestBody @Valid CategoryPutRequestBody categoryPutRequestBody,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        service.update(categoryPutRequestBody, IfMatch.expectedVersion(ifMatch));
         return ResponseEntity.ok(service.findByIdOrThrowBadRequestException(categoryPutRequestBody.getId()));
     }
 }
@@ -0,0 +1,33 @@
+package barbosa.guilherme.backend.controller;
+
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.responses.DashboardResponse;
+import barbosa.guilherme.backend.service.DashboardService;
+import barbosa.guilherme.backend.service.TableVersionRegistry;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/dashboard")
+public class DashboardController {
+    private final DashboardService service;
+    private final TableVersionRegistry versions;
+
+    public DashboardController(DashboardService service, TableVersionRegistry versions) {
+        this.service = service;
+        this.versions = versions;
+    }
+
+    @GetMapping
+    public ResponseEntity<DashboardResponse> dashboard(WebRequest request) {
+        String etag = versions.etag(EntityType.STOCK, EntityType.PRODUCT, EntityType.CATEGORY);
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePublic()).body(service.dashboard());
+    }
+}
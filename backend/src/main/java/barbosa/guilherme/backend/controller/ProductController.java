@@ -1,14 +1,30 @@
 package barbosa.guilherme.backend.controller;
 
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.service.DataFormat;
+import barbosa.guilherme.backend.service.ExportService;
+import barbosa.guilherme.backend.service.ProductImportService;
 import barbosa.guilherme.backend.service.ProductService;
+import barbosa.guilherme.backend.service.TableVersionRegistry;
 import barbosa.guilherme.backend.model.Product;
 import barbosa.guilherme.backend.requests.ProductPostRequestBody;
 import barbosa.guilherme.backend.requests.ProductPutRequestBody;
+import barbosa.guilherme.backend.responses.BatchLookupResponse;
+import barbosa.guilherme.backend.responses.ImportResult;
+import barbosa.guilherme.backend.responses.ProductPageResponse;
+import barbosa.guilherme.backend.responses.ProductResponse;
+import barbosa.guilherme.backend.util.IfMatch;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 
@@ -17,17 +33,67 @@ import java.util.List;
 @RequestMapping("/products")
 public class ProductController {
     private final ProductService service;
+    private final ExportService exportService;
+    private final ProductImportService importService;
+    private final TableVersionRegistry versions;
 
-    public ProductController(ProductService service) {
+    public ProductController(ProductService service, ExportService exportService, ProductImportService importService,
+                             TableVersionRegistry versions) {
         this.service = service;
+        this.exportService = exportService;
+        this.importService = importService;
+        this.versions = versions;
     }
 
     @GetMapping
-    public ResponseEntity<List<Product>> listAll() {return ResponseEntity.ok(service.listAll());}
+    public ResponseEntity<List<?>> listAll(@RequestParam(required = false) String fields, WebRequest request) {
+        String etag = versions.etag(EntityType.PRODUCT, EntityType.CATEGORY);
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePublic())
+                .body(fields == null ? service.listAll() : service.listAll(fields));
+    }
+
+    @GetMapping(path = "/page")
+    public ResponseEntity<ProductPageResponse> listPage(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer size,
+                                                        @RequestParam(required = false) Long categoryId,
+                                                        @RequestParam(required = false) Double minPrice,
+                                                        @RequestParam(required = false) Double maxPrice,
+                                                        @RequestParam(required = false) String name) {
+        return ResponseEntity.ok(service.listPage(cursor, size, categoryId, minPrice, maxPrice, name));
+    }
+
+    @GetMapping(path = "/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format,
+                                                        WebRequest request) {
+        exportService.extendTimeout(request);
+        DataFormat dataFormat = DataFormat.from(format);
+        return ResponseEntity.ok()
+                .contentType(dataFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=products." + dataFormat.extension())
+                .body(out -> exportService.exportProducts(dataFormat, out));
+    }
+
+    @GetMapping(path = "/search")
+    public ResponseEntity<List<ProductResponse>> search(@RequestParam String q,
+                                                        @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(service.search(q, limit));
+    }
+
+    @GetMapping(path = "/find")
+    public ResponseEntity<BatchLookupResponse<ProductResponse>> findByIds(@RequestParam List<Long> ids, WebRequest request){
+        String etag = versions.etag(EntityType.PRODUCT, EntityType.CATEGORY);
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePublic())
+                .body(service.findResponsesByIds(ids));
+    }
 
     @GetMapping(path = "/find/{id}")
-    public ResponseEntity<Product> findById(@PathVariable long id){
-        return ResponseEntity.ok(service.findByIdOrThrowBadRequestException(id));
+    public ResponseEntity<ProductResponse> findById(@PathVariable long id, WebRequest request){
+        String etag = versions.etag(EntityType.PRODUCT, EntityType.CATEGORY);
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePublic())
+                .body(service.findResponseByIdOrThrowBadRequestException(id));
     }
 
     @PostMapping("/add")
@@ -36,6 +102,12 @@ public class ProductController {
         return new ResponseEntity<>(service.save(productPostRequestBody), HttpStatus.CREATED);
     }
 
+    @PostMapping("/import")
+    public ResponseEntity<ImportResult> importProducts(@RequestParam(defaultValue = "csv") String format,
+                                                       InputStream body) throws IOException {
+        return ResponseEntity.ok(importService.importProducts(body, DataFormat.from(format)));
+    }
+
     @DeleteMapping(path = "/delete/{id}")
     public ResponseEntity<Void> delete(@PathVariable long id) {
         service.delete(id);
@@ -43,8 +115,9 @@ public class ProductController {
     }
 
     @PutMapping
-    public ResponseEntity<Void> update (@RequestBody @Valid ProductPutRequestBody productPutRequestBody){
-        service.update(productPutRequestBody);
+    public ResponseEntity<Void> update (@RequestBody @Valid ProductPutRequestBody productPutRequestBody,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        service.update(productPutRequestBody, IfMatch.expectedVersion(ifMatch));
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
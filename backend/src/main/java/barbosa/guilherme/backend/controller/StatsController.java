@@ -0,0 +1,65 @@
+package barbosa.guilherme.backend.controller;
+
+import barbosa.guilherme.backend.config.VirtualThreadPinningMonitor;
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.responses.CategoryCacheStats;
+import barbosa.guilherme.backend.responses.ConflictStats;
+import barbosa.guilherme.backend.responses.JwtCacheStats;
+import barbosa.guilherme.backend.responses.PasswordHashingStats;
+import barbosa.guilherme.backend.responses.PinningStats;
+import barbosa.guilherme.backend.service.CategoryService;
+import barbosa.guilherme.backend.service.OptimisticRetryExecutor;
+import barbosa.guilherme.backend.service.PasswordHashingExecutor;
+import barbosa.guilherme.backend.util.JwtUtil;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.Optional;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+    private final JwtUtil jwtUtil;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final CategoryService categoryService;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final Optional<VirtualThreadPinningMonitor> pinningMonitor;
+
+    public StatsController(JwtUtil jwtUtil, PasswordHashingExecutor passwordHashingExecutor,
+                           CategoryService categoryService, OptimisticRetryExecutor optimisticRetryExecutor,
+                           Optional<VirtualThreadPinningMonitor> pinningMonitor) {
+        this.optimisticRetryExecutor = optimisticRetryExecutor;
+        this.pinningMonitor = pinningMonitor;
+        this.jwtUtil = jwtUtil;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.categoryService = categoryService;
+    }
+
+    @GetMapping("/jwt")
+    public ResponseEntity<JwtCacheStats> jwt() {
+        return ResponseEntity.ok(new JwtCacheStats(jwtUtil.cacheHits(), jwtUtil.cacheMisses(), jwtUtil.cacheSize()));
+    }
+
+    @GetMapping("/password-hashing")
+    public ResponseEntity<PasswordHashingStats> passwordHashing() {
+        return ResponseEntity.ok(passwordHashingExecutor.stats());
+    }
+
+    @GetMapping("/categories-cache")
+    public ResponseEntity<CategoryCacheStats> categoriesCache() {
+        return ResponseEntity.ok(categoryService.cacheStats());
+    }
+
+    @GetMapping("/conflicts")
+    public ResponseEntity<Map<EntityType, ConflictStats>> conflicts() {
+        return ResponseEntity.ok(optimisticRetryExecutor.stats());
+    }
+
+    // Only recorded under the "virtual" profile
+    @GetMapping("/pinning")
+    public ResponseEntity<PinningStats> pinning() {
+        return ResponseEntity.of(pinningMonitor.map(VirtualThreadPinningMonitor::stats));
+    }
+}
@@ -1,14 +1,33 @@
 package barbosa.guilherme.backend.controller;
 
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.service.DataFormat;
+import barbosa.guilherme.backend.service.ExportService;
+import barbosa.guilherme.backend.service.ChangeFeedService;
 import barbosa.guilherme.backend.service.StockService;
+import barbosa.guilherme.backend.service.TableVersionRegistry;
 import barbosa.guilherme.backend.model.Stock;
+import barbosa.guilherme.backend.model.StockMovement;
+import barbosa.guilherme.backend.requests.StockAdjustRequestBody;
 import barbosa.guilherme.backend.requests.StockPostRequestBody;
 import barbosa.guilherme.backend.requests.StockPutRequestBody;
+import barbosa.guilherme.backend.responses.BatchLookupResponse;
+import barbosa.guilherme.backend.responses.StockQuantityResponse;
+import barbosa.guilherme.backend.responses.StockResponse;
+import barbosa.guilherme.backend.util.IfMatch;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @CrossOrigin(origins = "http://localhost:5173")
@@ -16,14 +35,48 @@ import java.util.List;
 @RequestMapping("/stock")
 public class StockController {
     private final StockService service;
+    private final ChangeFeedService changeFeedService;
+    private final ExportService exportService;
+    private final TableVersionRegistry versions;
 
-    public StockController(StockService service) {
+    public StockController(StockService service, ChangeFeedService changeFeedService, ExportService exportService,
+                           TableVersionRegistry versions) {
         this.service = service;
+        this.changeFeedService = changeFeedService;
+        this.exportService = exportService;
+        this.versions = versions;
     }
 
     @GetMapping
-    public ResponseEntity<List<Stock>> listAll(){
-        return new ResponseEntity<>(service.findAll(), HttpStatus.OK);
+    public ResponseEntity<List<?>> listAll(@RequestParam(required = false) String fields, WebRequest request){
+        String etag = versions.etag(EntityType.STOCK, EntityType.PRODUCT, EntityType.CATEGORY);
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePublic())
+                .body(fields == null ? service.findAll() : service.findAll(fields));
+    }
+
+    @GetMapping("/find")
+    public ResponseEntity<BatchLookupResponse<StockResponse>> findByIds(@RequestParam List<Long> ids, WebRequest request){
+        String etag = versions.etag(EntityType.STOCK, EntityType.PRODUCT, EntityType.CATEGORY);
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePublic())
+                .body(service.findResponsesByIds(ids));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format,
+                                                        WebRequest request){
+        exportService.extendTimeout(request);
+        DataFormat dataFormat = DataFormat.from(format);
+        return ResponseEntity.ok()
+                .contentType(dataFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=stock." + dataFormat.extension())
+                .body(out -> exportService.exportStock(dataFormat, out));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(){
+        return changeFeedService.subscribe();
     }
 
     @PostMapping("/add")
@@ -38,8 +91,28 @@ public class StockController {
     }
 
     @PutMapping
-    public ResponseEntity<Void> update(@RequestBody @Valid StockPutRequestBody stockPutRequestBody){
-        service.update(stockPutRequestBody);
+    public ResponseEntity<Void> update(@RequestBody @Valid StockPutRequestBody stockPutRequestBody,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        service.update(stockPutRequestBody, IfMatch.expectedVersion(ifMatch));
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    @PostMapping("/{id}/adjust")
+    public ResponseEntity<StockQuantityResponse> adjust(@PathVariable long id,
+                                                        @RequestBody @Valid StockAdjustRequestBody stockAdjustRequestBody){
+        return ResponseEntity.ok(service.adjust(id, stockAdjustRequestBody));
+    }
+
+    @GetMapping("/{id}/quantity-at")
+    public ResponseEntity<StockQuantityResponse> quantityAt(@PathVariable long id,
+                                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at){
+        return ResponseEntity.ok(service.quantityAt(id, at));
+    }
+
+    @GetMapping("/{id}/movements")
+    public ResponseEntity<List<StockMovement>> movements(@PathVariable long id,
+                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to){
+        return ResponseEntity.ok(service.movements(id, from, to));
+    }
 }
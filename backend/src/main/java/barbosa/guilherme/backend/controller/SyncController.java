@@ -0,0 +1,22 @@
+package barbosa.guilherme.backend.controller;
+
+import barbosa.guilherme.backend.responses.SyncResponse;
+import barbosa.guilherme.backend.service.ChangeLogService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "http://localhost:5173")
+@RestController
+@RequestMapping("/sync")
+public class SyncController {
+    private final ChangeLogService service;
+
+    public SyncController(ChangeLogService service) {
+        this.service = service;
+    }
+
+    @GetMapping
+    public ResponseEntity<SyncResponse> changesSince(@RequestParam(defaultValue = "0") long since) {
+        return ResponseEntity.ok(service.changesSince(since));
+    }
+}
@@ -6,12 +6,15 @@ import barbosa.guilherme.backend.requests.UserLoginRequestBody;
 import barbosa.guilherme.backend.requests.UserPostRequestBody;
 import barbosa.guilherme.backend.requests.UserPutRequestBody;
 import barbosa.guilherme.backend.responses.TokenResponse;
+import barbosa.guilherme.backend.util.IfMatch;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @CrossOrigin(origins = "http://localhost:5173")
 @RestController
@@ -24,18 +27,18 @@ public class UserController {
     }
 
     @PostMapping("/register")
-    public ResponseEntity<TokenResponse> register(@RequestBody @Valid UserPostRequestBody request) {
-        return ResponseEntity.ok(service.register(request));
+    public CompletableFuture<ResponseEntity<TokenResponse>> register(@RequestBody @Valid UserPostRequestBody request) {
+        return service.register(request).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<TokenResponse> login(@RequestBody @Valid UserLoginRequestBody request) {
-        return ResponseEntity.ok(service.login(request));
+    public CompletableFuture<ResponseEntity<TokenResponse>> login(@RequestBody @Valid UserLoginRequestBody request) {
+        return service.login(request).thenApply(ResponseEntity::ok);
     }
 
     @GetMapping
-    public ResponseEntity<List<User>> listAll(){
-        return ResponseEntity.ok(service.listAll());
+    public ResponseEntity<List<?>> listAll(@RequestParam(required = false) String fields){
+        return ResponseEntity.ok(fields == null ? service.listAll() : service.listAll(fields));
     }
 
     @GetMapping(path = "/find/{id}")
@@ -50,8 +53,9 @@ public class UserController {
     }
 
     @PutMapping
-    public ResponseEntity<Void> update(@RequestBody @Valid UserPutRequestBody userPutRequestBody) {
-        service.update(userPutRequestBody);
+    public ResponseEntity<Void> update(@RequestBody @Valid UserPutRequestBody userPutRequestBody,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        service.update(userPutRequestBody, IfMatch.expectedVersion(ifMatch));
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 }
@@ -0,0 +1,7 @@
+package barbosa.guilherme.backend.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
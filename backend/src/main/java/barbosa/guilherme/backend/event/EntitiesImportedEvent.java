@@ -0,0 +1,6 @@
+package barbosa.guilherme.backend.event;
+
+import java.util.List;
+
+// Published once per committed import batch instead of one EntityChangedEvent per row
+public record EntitiesImportedEvent(EntityType type, List<Long> ids) {}
@@ -0,0 +1,13 @@
+package barbosa.guilherme.backend.event;
+
+/*
+ * Published by the services on every mutation; listeners react after the surrounding transaction commits.
+ * Deferred changes only exist in the stock counters so far; the counter flush writes the row and its change log
+ * entry later, in one batch.
+ */
+public record EntityChangedEvent(EntityType type, long id, ChangeType change, boolean deferred) {
+
+    public EntityChangedEvent(EntityType type, long id, ChangeType change) {
+        this(type, id, change, false);
+    }
+}
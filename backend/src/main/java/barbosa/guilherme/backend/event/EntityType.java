@@ -0,0 +1,8 @@
+package barbosa.guilherme.backend.event;
+
+public enum EntityType {
+    PRODUCT,
+    CATEGORY,
+    STOCK,
+    USER
+}
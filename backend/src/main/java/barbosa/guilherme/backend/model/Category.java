@@ -25,6 +25,10 @@ public class Category {
     @Column(nullable = false, unique = true, length = 120)
     private String slug;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,38 @@
+package barbosa.guilherme.backend.model;
+
+import barbosa.guilherme.backend.event.ChangeType;
+import barbosa.guilherme.backend.event.EntityType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One row per committed mutation; the auto-increment id is the change version clients sync from
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Builder
+@Table(name = "change_log")
+public class ChangeLogEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, updatable = false, length = 16)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false, updatable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, updatable = false, length = 16)
+    private ChangeType changeType;
+
+    @Column(name = "changed_at", nullable = false, updatable = false)
+    private LocalDateTime changedAt;
+}
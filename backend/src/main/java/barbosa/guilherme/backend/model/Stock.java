@@ -26,6 +26,10 @@ public class Stock {
     @Column(nullable = false)
     private Integer quantity;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
 //    @Column(name = "location")
 //    private String location;
 
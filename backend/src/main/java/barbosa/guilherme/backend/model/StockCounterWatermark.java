@@ -0,0 +1,23 @@
+package barbosa.guilherme.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Single row: the newest stock counter journal segment whose deltas are already in the stock table
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "stock_counter_watermark")
+public class StockCounterWatermark {
+    @Id
+    private Long id;
+
+    @Column(name = "last_segment", nullable = false)
+    private Long lastSegment;
+}
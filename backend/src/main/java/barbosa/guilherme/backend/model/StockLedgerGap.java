@@ -0,0 +1,35 @@
+package barbosa.guilherme.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/*
+ * Range of movement ids that was missing when the snapshot window containing it was folded: either a transaction
+ * that had not committed yet or one that rolled back. Rows that show up inside a gap later are folded then.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Builder
+@Table(name = "stock_ledger_gaps")
+public class StockLedgerGap {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Inclusive bounds
+    @Column(name = "from_id", nullable = false, updatable = false)
+    private Long fromId;
+
+    @Column(name = "to_id", nullable = false, updatable = false)
+    private Long toId;
+
+    @Column(name = "detected_at", nullable = false, updatable = false)
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,45 @@
+package barbosa.guilherme.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Builder
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movements_stock_id", columnList = "stock_id, id"),
+        @Index(name = "idx_stock_movements_stock_created", columnList = "stock_id, created_at")
+})
+public class StockMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain column rather than a relation so history outlives the stock row
+    @Column(name = "stock_id", nullable = false, updatable = false)
+    private Long stockId;
+
+    @Column(nullable = false, updatable = false)
+    private Long delta;
+
+    @Column(nullable = false, updatable = false, length = 40)
+    private String reason;
+
+    @Column(updatable = false)
+    private String username;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void onCreate() {
+        if (createdAt == null) createdAt = LocalDateTime.now();
+    }
+}
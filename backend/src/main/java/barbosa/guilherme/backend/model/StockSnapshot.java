@@ -0,0 +1,36 @@
+package barbosa.guilherme.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Builder
+@Table(name = "stock_snapshots", indexes = {
+        @Index(name = "idx_stock_snapshots_stock_taken", columnList = "stock_id, taken_at")
+})
+public class StockSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stock_id", nullable = false, updatable = false)
+    private Long stockId;
+
+    // Sum of every movement of this stock up to and including lastMovementId
+    @Column(nullable = false, updatable = false)
+    private Long quantity;
+
+    @Column(name = "last_movement_id", nullable = false, updatable = false)
+    private Long lastMovementId;
+
+    @Column(name = "taken_at", nullable = false, updatable = false)
+    private LocalDateTime takenAt;
+}
@@ -0,0 +1,37 @@
+package barbosa.guilherme.backend.model;
+
+import barbosa.guilherme.backend.event.EntityType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// A table's version is the sum of its stripes; each commit bumps one, so concurrent writers rarely meet on a row
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "table_version_stripes")
+@IdClass(TableVersion.Key.class)
+public class TableVersion {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", length = 16)
+    private EntityType entityType;
+
+    @Id
+    private Integer stripe;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private EntityType entityType;
+        private Integer stripe;
+    }
+}
@@ -1,7 +1,24 @@
 package barbosa.guilherme.backend.repository;
 
 import barbosa.guilherme.backend.model.Category;
+import barbosa.guilherme.backend.responses.CategoryTotals;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    // Left joins keep empty categories in the result with zero totals
+    @Query("""
+            SELECT new barbosa.guilherme.backend.responses.CategoryTotals(
+                c.id, c.name, COUNT(DISTINCT p.id), COUNT(s.id),
+                COALESCE(SUM(s.quantity), 0L), COALESCE(SUM(s.quantity * p.price), 0.0))
+            FROM Category c
+            LEFT JOIN Product p ON p.category = c
+            LEFT JOIN Stock s ON s.product = p
+            GROUP BY c.id, c.name
+            ORDER BY c.name
+            """)
+    List<CategoryTotals> findCategoryTotals();
 }
@@ -0,0 +1,15 @@
+package barbosa.guilherme.backend.repository;
+
+import barbosa.guilherme.backend.model.ChangeLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    @Query("SELECT e FROM ChangeLogEntry e WHERE e.id > :since ORDER BY e.id")
+    List<ChangeLogEntry> findSince(@Param("since") long since, Pageable pageable);
+}
@@ -0,0 +1,150 @@
+package barbosa.guilherme.backend.repository;
+
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.exception.BadRequestException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/*
+ * Runs list queries that select only the columns behind a client's "fields=" parameter, joining a related table
+ * only when one of its columns was asked for. Fields are dotted JSON paths ("category.name"); naming a parent
+ * ("category") selects all of its children. Rows come back as nested maps shaped like the full responses.
+ */
+@Repository
+public class FieldsetRepository {
+    private static final Map<EntityType, Definition> DEFINITIONS = new EnumMap<>(EntityType.class);
+
+    static {
+        DEFINITIONS.put(EntityType.PRODUCT, new Definition("Product p", "p.id")
+                .join("c", "JOIN p.category c")
+                .column("id", "p.id")
+                .column("name", "p.name")
+                .column("description", "p.description")
+                .column("price", "p.price")
+                .column("version", "p.version")
+                .column("category.id", "p.category.id")
+                .column("category.name", "c.name", "c")
+                .column("category.slug", "c.slug", "c"));
+        DEFINITIONS.put(EntityType.CATEGORY, new Definition("Category c", "c.id")
+                .column("id", "c.id")
+                .column("name", "c.name")
+                .column("slug", "c.slug")
+                .column("version", "c.version")
+                .column("createdAt", "c.createdAt")
+                .column("updatedAt", "c.updatedAt"));
+        DEFINITIONS.put(EntityType.STOCK, new Definition("Stock s", "s.id")
+                .join("p", "JOIN s.product p")
+                .join("c", "JOIN p.category c")
+                .column("id", "s.id")
+                .column("quantity", "s.quantity")
+                .column("version", "s.version")
+                .column("createdAt", "s.createdAt")
+                .column("updatedAt", "s.updatedAt")
+                .column("product.id", "s.product.id")
+                .column("product.name", "p.name", "p")
+                .column("product.description", "p.description", "p")
+                .column("product.price", "p.price", "p")
+                .column("product.version", "p.version", "p")
+                .column("product.category.id", "p.category.id", "p")
+                .column("product.category.name", "c.name", "p", "c")
+                .column("product.category.slug", "c.slug", "p", "c"));
+        // Password hashes and the roles collection are never selectable
+        DEFINITIONS.put(EntityType.USER, new Definition("User u", "u.id")
+                .column("id", "u.id")
+                .column("name", "u.name")
+                .column("email", "u.email")
+                .column("version", "u.version"));
+    }
+
+    private final EntityManager entityManager;
+
+    public FieldsetRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public List<Map<String, Object>> findAll(EntityType type, String fields) {
+        Definition definition = DEFINITIONS.get(type);
+        List<String> paths = definition.resolve(fields);
+
+        Set<String> joins = new HashSet<>();
+        List<String> expressions = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            Column column = definition.columns.get(path);
+            expressions.add(column.expression());
+            joins.addAll(column.joins());
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT ").append(String.join(", ", expressions))
+                .append(" FROM ").append(definition.root);
+        definition.joins.forEach((alias, clause) -> {
+            if (joins.contains(alias)) jpql.append(' ').append(clause);
+        });
+        jpql.append(" ORDER BY ").append(definition.orderBy);
+
+        List<Tuple> tuples = entityManager.createQuery(jpql.toString(), Tuple.class).getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < paths.size(); i++) put(row, paths.get(i), tuple.get(i));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Map<String, Object> target, String path, Object value) {
+        int dot = path.indexOf('.');
+        if (dot < 0) {
+            target.put(path, value);
+            return;
+        }
+        Map<String, Object> child = (Map<String, Object>) target.computeIfAbsent(path.substring(0, dot),
+                key -> new LinkedHashMap<String, Object>());
+        put(child, path.substring(dot + 1), value);
+    }
+
+    private record Column(String expression, List<String> joins) {}
+
+    private static final class Definition {
+        private final String root;
+        private final String orderBy;
+        private final Map<String, String> joins = new LinkedHashMap<>();
+        private final Map<String, Column> columns = new LinkedHashMap<>();
+
+        private Definition(String root, String orderBy) {
+            this.root = root;
+            this.orderBy = orderBy;
+        }
+
+        private Definition join(String alias, String clause) {
+            joins.put(alias, clause);
+            return this;
+        }
+
+        private Definition column(String path, String expression, String... joinAliases) {
+            columns.put(path, new Column(expression, List.of(joinAliases)));
+            return this;
+        }
+
+        // Keeps the order the client asked for, drops duplicates and rejects anything not whitelisted above
+        private List<String> resolve(String fields) {
+            Set<String> paths = new LinkedHashSet<>();
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (name.isEmpty()) continue;
+                if (columns.containsKey(name)) {
+                    paths.add(name);
+                    continue;
+                }
+                List<String> children = columns.keySet().stream().filter(path -> path.startsWith(name + ".")).toList();
+                if (children.isEmpty()) throw new BadRequestException("Unknown field: " + name);
+                paths.addAll(children);
+            }
+            if (paths.isEmpty()) throw new BadRequestException("fields must name at least one field");
+            return new ArrayList<>(paths);
+        }
+    }
+}
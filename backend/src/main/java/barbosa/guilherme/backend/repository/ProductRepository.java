@@ -1,7 +1,88 @@
 package barbosa.guilherme.backend.repository;
 
 import barbosa.guilherme.backend.model.Product;
+import barbosa.guilherme.backend.responses.ProductResponse;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    // Rows per round trip when streaming; MySQL honours it with useCursorFetch=true on the connection URL
+    String EXPORT_FETCH_SIZE = "1000";
+
+    @Query("""
+            SELECT new barbosa.guilherme.backend.responses.ProductResponse(
+                p.id, p.name, p.description, p.price, p.version, c.id, c.name, c.slug)
+            FROM Product p JOIN p.category c
+            ORDER BY p.id
+            """)
+    List<ProductResponse> findAllResponses();
+
+    @Query("""
+            SELECT new barbosa.guilherme.backend.responses.ProductResponse(
+                p.id, p.name, p.description, p.price, p.version, c.id, c.name, c.slug)
+            FROM Product p JOIN p.category c
+            WHERE p.id = :id
+            """)
+    Optional<ProductResponse> findResponseById(@Param("id") long id);
+
+    @Query("""
+            SELECT new barbosa.guilherme.backend.responses.ProductResponse(
+                p.id, p.name, p.description, p.price, p.version, c.id, c.name, c.slug)
+            FROM Product p JOIN p.category c
+            WHERE p.id IN :ids
+            """)
+    List<ProductResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            SELECT new barbosa.guilherme.backend.responses.ProductResponse(
+                p.id, p.name, p.description, p.price, p.version, c.id, c.name, c.slug)
+            FROM Product p JOIN p.category c
+            WHERE c.id = :categoryId
+            """)
+    List<ProductResponse> findResponsesByCategoryId(@Param("categoryId") long categoryId);
+
+    @Query("""
+            SELECT new barbosa.guilherme.backend.responses.ProductResponse(
+                p.id, p.name, p.description, p.price, p.version, c.id, c.name, c.slug)
+            FROM Product p JOIN p.category c
+            ORDER BY p.id DESC
+            """)
+    List<ProductResponse> findLatestResponses(Pageable pageable);
+
+    @Query("""
+            SELECT new barbosa.guilherme.backend.responses.ProductResponse(
+                p.id, p.name, p.description, p.price, p.version, c.id, c.name, c.slug)
+            FROM Product p JOIN p.category c
+            WHERE p.id > :afterId
+              AND (:categoryId IS NULL OR c.id = :categoryId)
+              AND (:minPrice IS NULL OR p.price >= :minPrice)
+              AND (:maxPrice IS NULL OR p.price <= :maxPrice)
+              AND (:namePrefix IS NULL OR p.name LIKE CONCAT(:namePrefix, '%') ESCAPE '!')
+            ORDER BY p.id
+            """)
+    List<ProductResponse> findPageAfter(@Param("afterId") long afterId,
+                                        @Param("categoryId") Long categoryId,
+                                        @Param("minPrice") Double minPrice,
+                                        @Param("maxPrice") Double maxPrice,
+                                        @Param("namePrefix") String namePrefix,
+                                        Pageable pageable);
+
+    @Query("""
+            SELECT new barbosa.guilherme.backend.responses.ProductResponse(
+                p.id, p.name, p.description, p.price, p.version, c.id, c.name, c.slug)
+            FROM Product p JOIN p.category c
+            ORDER BY p.id
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    Stream<ProductResponse> streamAllResponses();
 }
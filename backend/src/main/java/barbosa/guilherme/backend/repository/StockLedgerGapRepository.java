@@ -0,0 +1,16 @@
+package barbosa.guilherme.backend.repository;
+
+import barbosa.guilherme.backend.model.StockLedgerGap;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface StockLedgerGapRepository extends JpaRepository<StockLedgerGap, Long> {
+
+    @Modifying
+    @Query("DELETE FROM StockLedgerGap g WHERE g.detectedAt < :before")
+    int deleteDetectedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,49 @@
+package barbosa.guilherme.backend.repository;
+
+import barbosa.guilherme.backend.model.StockMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    @Query("""
+            SELECT m FROM StockMovement m
+            WHERE m.stockId = :stockId AND m.createdAt >= :from AND m.createdAt < :to
+            ORDER BY m.id
+            """)
+    List<StockMovement> findByStockIdBetween(@Param("stockId") long stockId,
+                                             @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to,
+                                             Pageable pageable);
+
+    @Query("""
+            SELECT COALESCE(SUM(m.delta), 0) FROM StockMovement m
+            WHERE m.stockId = :stockId AND m.id > :afterId AND m.createdAt <= :at
+            """)
+    long sumDeltasAfter(@Param("stockId") long stockId, @Param("afterId") long afterId,
+                        @Param("at") LocalDateTime at);
+
+    @Query("SELECT COALESCE(MAX(m.id), 0) FROM StockMovement m WHERE m.createdAt <= :cutoff")
+    long findMaxIdCreatedUpTo(@Param("cutoff") LocalDateTime cutoff);
+
+    // Movements that committed inside a gap recorded by an earlier snapshot round: id, stock id, delta
+    @Query("""
+            SELECT m.id, g.id, m.stockId, m.delta FROM StockMovement m, StockLedgerGap g
+            WHERE m.id >= g.fromId AND m.id <= g.toId
+            ORDER BY m.id
+            """)
+    List<Object[]> findInGaps();
+
+    @Query("""
+            SELECT COALESCE(SUM(m.delta), 0) FROM StockMovement m, StockLedgerGap g
+            WHERE m.stockId = :stockId AND m.id >= g.fromId AND m.id <= g.toId
+              AND m.id <= :upToId AND m.createdAt <= :at
+            """)
+    long sumDeltasInGaps(@Param("stockId") long stockId, @Param("upToId") long upToId,
+                         @Param("at") LocalDateTime at);
+}
@@ -1,7 +1,69 @@
 package barbosa.guilherme.backend.repository;
 
 import barbosa.guilherme.backend.model.Stock;
+import barbosa.guilherme.backend.responses.DashboardStockRow;
+import barbosa.guilherme.backend.responses.StockResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface StockRepository extends JpaRepository<Stock, Long> {
+    String EXPORT_FETCH_SIZE = "1000";
+
+    @Query("""
+            SELECT new barbosa.guilherme.backend.responses.StockResponse(
+                s.id, s.quantity, s.version, s.createdAt, s.updatedAt,
+                p.id, p.name, p.description, p.price, p.version, c.id, c.name, c.slug)
+            FROM Stock s JOIN s.product p JOIN p.category c
+            ORDER BY s.id
+            """)
+    List<StockResponse> findAllResponses();
+
+    @Query("""
+            SELECT new barbosa.guilherme.backend.responses.StockResponse(
+                s.id, s.quantity, s.version, s.createdAt, s.updatedAt,
+                p.id, p.name, p.description, p.price, p.version, c.id, c.name, c.slug)
+            FROM Stock s JOIN s.product p JOIN p.category c
+            WHERE s.id IN :ids
+            """)
+    List<StockResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            SELECT new barbosa.guilherme.backend.responses.DashboardStockRow(
+                s.id, s.quantity, p.id, p.name, p.price, c.id, c.name)
+            FROM Stock s JOIN s.product p JOIN p.category c
+            ORDER BY s.id
+            """)
+    List<DashboardStockRow> findDashboardRows();
+
+    // Single conditional UPDATE: the row lock is held only for the increment and never goes negative
+    @Modifying
+    @Query("""
+            UPDATE Stock s SET s.quantity = s.quantity + :delta, s.updatedAt = :now, s.version = s.version + 1
+            WHERE s.id = :id AND s.quantity + :delta >= 0
+            """)
+    int adjustQuantity(@Param("id") long id, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    @Query("SELECT s.quantity FROM Stock s WHERE s.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") long id);
+
+    @Query("""
+            SELECT new barbosa.guilherme.backend.responses.StockResponse(
+                s.id, s.quantity, s.version, s.createdAt, s.updatedAt,
+                p.id, p.name, p.description, p.price, p.version, c.id, c.name, c.slug)
+            FROM Stock s JOIN s.product p JOIN p.category c
+            ORDER BY s.id
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    Stream<StockResponse> streamAllResponses();
 }
@@ -0,0 +1,26 @@
+package barbosa.guilherme.backend.repository;
+
+import barbosa.guilherme.backend.model.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    Optional<StockSnapshot> findFirstByStockIdAndTakenAtLessThanEqualOrderByIdDesc(Long stockId, LocalDateTime at);
+
+    @Query("SELECT COALESCE(MAX(s.lastMovementId), 0) FROM StockSnapshot s")
+    long findLastSnapshotMovementId();
+
+    @Query("""
+            SELECT s FROM StockSnapshot s
+            WHERE s.stockId IN :stockIds
+              AND s.id = (SELECT MAX(latest.id) FROM StockSnapshot latest WHERE latest.stockId = s.stockId)
+            """)
+    List<StockSnapshot> findLatestByStockIds(@Param("stockIds") Collection<Long> stockIds);
+}
@@ -0,0 +1,37 @@
+package barbosa.guilherme.backend.requests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class BatchOperation {
+    @NotNull(message = "resource is required")
+    private Resource resource;
+
+    @NotNull(message = "action is required")
+    private Action action;
+
+    // Target of a delete; add and update carry their ids in the body like the single-resource endpoints
+    private Long id;
+
+    // Optional expected version for updates, same contract as If-Match on the PUT endpoints
+    private Long version;
+
+    // Same shape as the request body of the matching single-resource endpoint
+    private JsonNode body;
+
+    public enum Resource {
+        @JsonProperty("products") PRODUCTS,
+        @JsonProperty("categories") CATEGORIES,
+        @JsonProperty("stock") STOCK,
+        @JsonProperty("users") USERS
+    }
+
+    public enum Action {
+        @JsonProperty("add") ADD,
+        @JsonProperty("update") UPDATE,
+        @JsonProperty("delete") DELETE
+    }
+}
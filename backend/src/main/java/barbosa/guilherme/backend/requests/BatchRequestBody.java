@@ -0,0 +1,13 @@
+package barbosa.guilherme.backend.requests;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchRequestBody {
+    @NotEmpty(message = "operations cannot be empty")
+    private List<@Valid BatchOperation> operations;
+}
@@ -9,8 +9,10 @@ import lombok.Setter;
 public class ProductPostRequestBody {
     @NotBlank
     @Size(min = 3, message = "Name must have at least 3 characters")
+    @Size(max = 255)
     private String name;
 
+    @Size(max = 255)
     private String description;
 
     @NotNull
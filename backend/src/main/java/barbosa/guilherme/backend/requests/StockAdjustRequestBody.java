@@ -0,0 +1,14 @@
+package barbosa.guilherme.backend.requests;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class StockAdjustRequestBody {
+    @NotNull(message = "Amount is required")
+    private Integer amount;
+
+    @Size(max = 40, message = "Reason must have at most 40 characters")
+    private String reason;
+}
@@ -0,0 +1,26 @@
+package barbosa.guilherme.backend.responses;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public record BatchLookupResponse<T>(List<T> items, List<Long> missing) {
+
+    // Lines the rows up with the requested ids; ids without a row are reported instead of failing the lookup
+    public static <T> BatchLookupResponse<T> of(List<Long> ids, Collection<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T row : rows) byId.put(idOf.apply(row), row);
+
+        List<T> items = new ArrayList<>(byId.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            T row = byId.get(id);
+            if (row == null) missing.add(id);
+            else items.add(row);
+        }
+        return new BatchLookupResponse<>(items, missing);
+    }
+}
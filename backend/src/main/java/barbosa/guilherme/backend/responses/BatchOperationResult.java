@@ -0,0 +1,3 @@
+package barbosa.guilherme.backend.responses;
+
+public record BatchOperationResult(int index, int status, Long id, String error) {}
@@ -0,0 +1,6 @@
+package barbosa.guilherme.backend.responses;
+
+import java.util.List;
+
+// When committed is false nothing was applied; results stop at the operation that failed
+public record BatchResponse(boolean committed, List<BatchOperationResult> results) {}
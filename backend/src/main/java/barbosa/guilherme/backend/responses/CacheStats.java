@@ -0,0 +1,3 @@
+package barbosa.guilherme.backend.responses;
+
+public record CacheStats(long hits, long misses, long evictions, int size, double hitRate) {}
@@ -0,0 +1,3 @@
+package barbosa.guilherme.backend.responses;
+
+public record CategoryCacheStats(CacheStats list, CacheStats byId) {}
@@ -0,0 +1,3 @@
+package barbosa.guilherme.backend.responses;
+
+public record CategorySummary(Long id, String name, String slug) {}
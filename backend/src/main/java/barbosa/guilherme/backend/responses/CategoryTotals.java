@@ -0,0 +1,3 @@
+package barbosa.guilherme.backend.responses;
+
+public record CategoryTotals(Long id, String name, long products, long stockRows, long quantity, double value) {}
@@ -0,0 +1,3 @@
+package barbosa.guilherme.backend.responses;
+
+public record ConflictStats(long conflicts, long retries, long exhausted, long preconditionFailures) {}
@@ -0,0 +1,6 @@
+package barbosa.guilherme.backend.responses;
+
+import java.util.List;
+
+public record DashboardResponse(DashboardTotals totals, List<CategoryTotals> categories, List<DashboardStockRow> stock,
+                                List<ProductResponse> recentProducts) {}
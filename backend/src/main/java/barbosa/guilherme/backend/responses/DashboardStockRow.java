@@ -0,0 +1,4 @@
+package barbosa.guilherme.backend.responses;
+
+public record DashboardStockRow(Long id, Integer quantity, Long productId, String productName, Double productPrice,
+                                Long categoryId, String categoryName) {}
@@ -0,0 +1,4 @@
+package barbosa.guilherme.backend.responses;
+
+public record DashboardTotals(long products, long categories, long stockRows, long quantity, double value,
+                              long lowStock, long outOfStock) {}
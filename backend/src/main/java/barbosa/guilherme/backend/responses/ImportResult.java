@@ -0,0 +1,5 @@
+package barbosa.guilherme.backend.responses;
+
+import java.util.List;
+
+public record ImportResult(long imported, long failed, List<ImportRowError> errors) {}
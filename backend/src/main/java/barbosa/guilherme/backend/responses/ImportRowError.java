@@ -0,0 +1,3 @@
+package barbosa.guilherme.backend.responses;
+
+public record ImportRowError(long line, String message) {}
@@ -0,0 +1,3 @@
+package barbosa.guilherme.backend.responses;
+
+public record JwtCacheStats(long hits, long misses, int size) {}
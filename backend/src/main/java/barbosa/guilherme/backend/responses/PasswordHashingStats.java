@@ -0,0 +1,4 @@
+package barbosa.guilherme.backend.responses;
+
+public record PasswordHashingStats(int queueDepth, int activeHashes, long completed, long rejected,
+                                   double averageHashMillis, double maxHashMillis) {}
@@ -0,0 +1,3 @@
+package barbosa.guilherme.backend.responses;
+
+public record PinningSite(String site, long events, long totalPinnedMillis, long maxPinnedMillis) {}
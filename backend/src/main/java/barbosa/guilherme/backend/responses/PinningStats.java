@@ -0,0 +1,5 @@
+package barbosa.guilherme.backend.responses;
+
+import java.util.List;
+
+public record PinningStats(long thresholdMillis, long events, long totalPinnedMillis, List<PinningSite> sites) {}
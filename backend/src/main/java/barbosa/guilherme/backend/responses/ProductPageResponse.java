@@ -0,0 +1,5 @@
+package barbosa.guilherme.backend.responses;
+
+import java.util.List;
+
+public record ProductPageResponse(List<ProductResponse> items, String nextCursor) {}
@@ -0,0 +1,11 @@
+package barbosa.guilherme.backend.responses;
+
+public record ProductResponse(Long id, String name, String description, Double price, Long version,
+                              CategorySummary category) {
+
+    // Flat constructor used by JPQL constructor expressions
+    public ProductResponse(Long id, String name, String description, Double price, Long version,
+                           Long categoryId, String categoryName, String categorySlug) {
+        this(id, name, description, price, version, new CategorySummary(categoryId, categoryName, categorySlug));
+    }
+}
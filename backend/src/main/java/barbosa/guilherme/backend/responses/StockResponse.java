@@ -0,0 +1,15 @@
+package barbosa.guilherme.backend.responses;
+
+import java.time.LocalDateTime;
+
+public record StockResponse(Long id, ProductResponse product, Integer quantity, Long version,
+                            LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+    // Flat constructor used by JPQL constructor expressions
+    public StockResponse(Long id, Integer quantity, Long version, LocalDateTime createdAt, LocalDateTime updatedAt,
+                         Long productId, String productName, String productDescription, Double productPrice,
+                         Long productVersion, Long categoryId, String categoryName, String categorySlug) {
+        this(id, new ProductResponse(productId, productName, productDescription, productPrice, productVersion,
+                categoryId, categoryName, categorySlug), quantity, version, createdAt, updatedAt);
+    }
+}
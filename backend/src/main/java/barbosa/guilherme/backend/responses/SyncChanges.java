@@ -0,0 +1,5 @@
+package barbosa.guilherme.backend.responses;
+
+import java.util.List;
+
+public record SyncChanges(List<Long> changed, List<Long> deleted) {}
@@ -0,0 +1,8 @@
+package barbosa.guilherme.backend.responses;
+
+import barbosa.guilherme.backend.event.EntityType;
+
+import java.util.Map;
+
+// version is what the client sends as "since" next time; hasMore means it should ask again right away
+public record SyncResponse(long version, Map<EntityType, SyncChanges> changes, boolean hasMore) {}
@@ -0,0 +1,196 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.exception.BadRequestException;
+import barbosa.guilherme.backend.requests.*;
+import barbosa.guilherme.backend.responses.BatchOperationResult;
+import barbosa.guilherme.backend.responses.BatchResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+ * Applies an ordered list of add/update/delete operations through the regular services inside one transaction.
+ * The first failing operation rolls the whole batch back. Updates and deletes are flushed together at commit, so
+ * Hibernate sends them as JDBC batches; inserts run as they come because IDENTITY ids need the row written.
+ */
+@Service
+public class BatchService {
+    private final ProductService productService;
+    private final CategoryService categoryService;
+    private final StockService stockService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxOperations;
+
+    public BatchService(ProductService productService, CategoryService categoryService, StockService stockService,
+                        UserService userService, ObjectMapper objectMapper, Validator validator,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${batch.max-operations}") int maxOperations) {
+        this.productService = productService;
+        this.categoryService = categoryService;
+        this.stockService = stockService;
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxOperations = maxOperations;
+    }
+
+    public BatchResponse execute(BatchRequestBody request, boolean admin) {
+        List<BatchOperation> operations = request.getOperations();
+        if (operations.size() > maxOperations) {
+            throw new BadRequestException("At most " + maxOperations + " operations per batch");
+        }
+        // Checked up front so a forbidden operation never starts the transaction
+        if (!admin && operations.stream().anyMatch(op -> op.getResource() == BatchOperation.Resource.USERS)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User operations require the ADMIN role");
+        }
+
+        List<BatchOperationResult> results = new ArrayList<>(operations.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < operations.size(); i++) {
+                    try {
+                        results.add(apply(i, operations.get(i)));
+                    } catch (BadRequestException | ResponseStatusException | OptimisticLockingFailureException
+                             | DataIntegrityViolationException e) {
+                        results.add(new BatchOperationResult(i, statusOf(e), null, messageOf(e)));
+                        throw new BatchAbortedException();
+                    }
+                }
+            });
+        } catch (BatchAbortedException e) {
+            return new BatchResponse(false, results);
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            // Raised by the flush at commit, after every operation was accepted, so no single one can be blamed
+            results.add(new BatchOperationResult(-1, statusOf(e), null, messageOf(e)));
+            return new BatchResponse(false, results);
+        }
+        return new BatchResponse(true, results);
+    }
+
+    private BatchOperationResult apply(int index, BatchOperation op) {
+        return switch (op.getResource()) {
+            case PRODUCTS -> switch (op.getAction()) {
+                case ADD -> created(index, productService.save(read(op, ProductPostRequestBody.class)).getId());
+                case UPDATE -> {
+                    ProductPutRequestBody body = read(op, ProductPutRequestBody.class);
+                    productService.update(body, op.getVersion());
+                    yield ok(index, body.getId());
+                }
+                case DELETE -> {
+                    productService.delete(requireId(op));
+                    yield deleted(index, op.getId());
+                }
+            };
+            case CATEGORIES -> switch (op.getAction()) {
+                case ADD -> created(index, categoryService.save(read(op, CategoryPostRequestBody.class)).getId());
+                case UPDATE -> {
+                    CategoryPutRequestBody body = read(op, CategoryPutRequestBody.class);
+                    categoryService.update(body, op.getVersion());
+                    yield ok(index, body.getId());
+                }
+                case DELETE -> {
+                    categoryService.delete(requireId(op));
+                    yield deleted(index, op.getId());
+                }
+            };
+            case STOCK -> switch (op.getAction()) {
+                case ADD -> created(index, stockService.save(read(op, StockPostRequestBody.class)).getId());
+                case UPDATE -> {
+                    StockPutRequestBody body = read(op, StockPutRequestBody.class);
+                    stockService.update(body, op.getVersion());
+                    yield ok(index, body.getId());
+                }
+                case DELETE -> {
+                    stockService.deleteById(requireId(op));
+                    yield deleted(index, op.getId());
+                }
+            };
+            case USERS -> switch (op.getAction()) {
+                // Registration hashes the password off-thread and issues a token, which has no place in a batch
+                case ADD -> throw new BadRequestException("Users are created through /users/register");
+                case UPDATE -> {
+                    UserPutRequestBody body = read(op, UserPutRequestBody.class);
+                    userService.update(body, op.getVersion());
+                    yield ok(index, body.getId());
+                }
+                case DELETE -> {
+                    userService.delete(requireId(op));
+                    yield deleted(index, op.getId());
+                }
+            };
+        };
+    }
+
+    private <T> T read(BatchOperation op, Class<T> type) {
+        if (op.getBody() == null || op.getBody().isNull()) throw new BadRequestException("body is required");
+        T body;
+        try {
+            body = objectMapper.treeToValue(op.getBody(), type);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Malformed body: " + e.getOriginalMessage());
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(body);
+        if (!violations.isEmpty()) {
+            throw new BadRequestException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return body;
+    }
+
+    private static long requireId(BatchOperation op) {
+        if (op.getId() == null) throw new BadRequestException("id is required");
+        return op.getId();
+    }
+
+    private static BatchOperationResult created(int index, Long id) {
+        return new BatchOperationResult(index, HttpStatus.CREATED.value(), id, null);
+    }
+
+    private static BatchOperationResult ok(int index, Long id) {
+        return new BatchOperationResult(index, HttpStatus.OK.value(), id, null);
+    }
+
+    private static BatchOperationResult deleted(int index, Long id) {
+        return new BatchOperationResult(index, HttpStatus.NO_CONTENT.value(), id, null);
+    }
+
+    private static int statusOf(RuntimeException e) {
+        if (e instanceof ResponseStatusException statusException) return statusException.getStatusCode().value();
+        if (e instanceof BadRequestException) return HttpStatus.BAD_REQUEST.value();
+        return HttpStatus.CONFLICT.value();
+    }
+
+    private static String messageOf(RuntimeException e) {
+        if (e instanceof ResponseStatusException statusException) return statusException.getReason();
+        if (e instanceof DataIntegrityViolationException) return "Constraint violation";
+        if (e instanceof OptimisticLockingFailureException) return "Modified concurrently";
+        return e.getMessage();
+    }
+
+    // Unwinds the transaction template so it rolls back; the results collected so far are kept
+    private static final class BatchAbortedException extends RuntimeException {
+        private BatchAbortedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.event.EntitiesImportedEvent;
+import barbosa.guilherme.backend.event.EntityChangedEvent;
+import barbosa.guilherme.backend.event.EntityType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Keeps the serialized JSON (and a gzip copy) of the anonymous catalog lists so they can be written straight to
+ * the response. A snapshot is only served while its ETag matches the current table versions; mutations schedule
+ * a rebuild on a single background thread, and until it lands requests fall through to the controllers.
+ */
+@Slf4j
+@Service
+public class CatalogSnapshotService {
+    private final Map<CatalogRoute, AtomicReference<Snapshot>> snapshots = new EnumMap<>(CatalogRoute.class);
+    private final Map<CatalogRoute, AtomicBoolean> rebuildPending = new EnumMap<>(CatalogRoute.class);
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ProductService productService;
+    private final CategoryService categoryService;
+    private final TableVersionRegistry versions;
+    private final ObjectMapper objectMapper;
+    private final int gzipMinBytes;
+
+    public CatalogSnapshotService(ProductService productService, CategoryService categoryService,
+                                  TableVersionRegistry versions, ObjectMapper objectMapper,
+                                  @Value("${catalog.snapshot.gzip-min-bytes}") int gzipMinBytes) {
+        this.productService = productService;
+        this.categoryService = categoryService;
+        this.versions = versions;
+        this.objectMapper = objectMapper;
+        this.gzipMinBytes = gzipMinBytes;
+        for (CatalogRoute route : CatalogRoute.values()) {
+            snapshots.put(route, new AtomicReference<>());
+            rebuildPending.put(route, new AtomicBoolean());
+        }
+    }
+
+    public Optional<Snapshot> current(CatalogRoute route) {
+        Snapshot snapshot = snapshots.get(route).get();
+        if (snapshot != null && snapshot.etag().equals(versions.etag(route.tables))) return Optional.of(snapshot);
+        requestRebuild(route);
+        return Optional.empty();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildAll() {
+        for (CatalogRoute route : CatalogRoute.values()) requestRebuild(route);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        rebuildDependents(event.type());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntitiesImported(EntitiesImportedEvent event) {
+        rebuildDependents(event.type());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    private void rebuildDependents(EntityType type) {
+        for (CatalogRoute route : CatalogRoute.values()) {
+            if (route.dependsOn(type)) requestRebuild(route);
+        }
+    }
+
+    // Coalesces bursts of mutations into a single rebuild per route
+    private void requestRebuild(CatalogRoute route) {
+        AtomicBoolean pending = rebuildPending.get(route);
+        if (!pending.compareAndSet(false, true)) return;
+        builder.execute(() -> {
+            pending.set(false);
+            build(route);
+        });
+    }
+
+    private void build(CatalogRoute route) {
+        // Version first: a commit racing the query leaves an older ETag on newer rows, which only costs a rebuild
+        String etag = versions.etag(route.tables);
+        try {
+            Object body = switch (route) {
+                case PRODUCTS -> productService.listAll();
+                case CATEGORIES -> categoryService.listAll();
+            };
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            byte[] gzip = json.length >= gzipMinBytes ? gzip(json) : null;
+            snapshots.get(route).set(new Snapshot(etag, json, gzip));
+        } catch (RuntimeException | IOException e) {
+            log.error("Failed to build the {} snapshot", route, e);
+            return;
+        }
+        if (!etag.equals(versions.etag(route.tables))) requestRebuild(route);
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        }
+        return out.toByteArray();
+    }
+
+    public enum CatalogRoute {
+        PRODUCTS(EntityType.PRODUCT, EntityType.CATEGORY),
+        CATEGORIES(EntityType.CATEGORY);
+
+        // Same tables, in the same order, as the ETag the controller computes for this route
+        private final EntityType[] tables;
+
+        CatalogRoute(EntityType... tables) {
+            this.tables = tables;
+        }
+
+        boolean dependsOn(EntityType type) {
+            return Arrays.asList(tables).contains(type);
+        }
+    }
+
+    public record Snapshot(String etag, byte[] json, byte[] gzip) {
+        // The gzip bytes are a different representation, so a strong validator must not be shared with the identity one
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gz\"";
+        }
+    }
+}
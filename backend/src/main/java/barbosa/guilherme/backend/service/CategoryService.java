@@ -1,26 +1,82 @@
 package barbosa.guilherme.backend.service;
 
+import barbosa.guilherme.backend.event.ChangeType;
+import barbosa.guilherme.backend.event.EntityChangedEvent;
+import barbosa.guilherme.backend.event.EntityType;
 import barbosa.guilherme.backend.exception.BadRequestException;
 import barbosa.guilherme.backend.model.Category;
 import barbosa.guilherme.backend.repository.CategoryRepository;
+import barbosa.guilherme.backend.repository.FieldsetRepository;
 import barbosa.guilherme.backend.requests.CategoryPostRequestBody;
 import barbosa.guilherme.backend.requests.CategoryPutRequestBody;
+import barbosa.guilherme.backend.responses.BatchLookupResponse;
+import barbosa.guilherme.backend.responses.CategoryCacheStats;
+import barbosa.guilherme.backend.util.BatchLookups;
+import barbosa.guilherme.backend.util.BoundedTtlCache;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class CategoryService {
+    private static final String ALL_CATEGORIES = "all";
+
     private final CategoryRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BoundedTtlCache<String, List<Category>> listCache;
+    private final BoundedTtlCache<Long, Category> byIdCache;
+    private final FieldsetRepository fieldsetRepository;
+    private final OptimisticRetryExecutor retryExecutor;
+
+    public CategoryService(CategoryRepository repository, ApplicationEventPublisher eventPublisher,
+                           FieldsetRepository fieldsetRepository, OptimisticRetryExecutor retryExecutor,
+                           @Value("${category.cache.max-size}") int cacheMaxSize,
+                           @Value("${category.cache.ttl-ms}") long cacheTtlMs) {
+        this.repository = repository;
+        this.fieldsetRepository = fieldsetRepository;
+        this.retryExecutor = retryExecutor;
+        this.eventPublisher = eventPublisher;
+        this.listCache = new BoundedTtlCache<>(1, cacheTtlMs);
+        this.byIdCache = new BoundedTtlCache<>(cacheMaxSize, cacheTtlMs);
+    }
 
-    public CategoryService(CategoryRepository repository) {this.repository = repository;}
+    public List<Category> listAll() {return listCache.get(ALL_CATEGORIES, key -> List.copyOf(repository.findAll()));}
 
-    public List<Category> listAll() {return repository.findAll();}
+    // Narrow projections bypass the cache; they are cheap and the key space is whatever clients send
+    public List<Map<String, Object>> listAll(String fields) {
+        return fieldsetRepository.findAll(EntityType.CATEGORY, fields);
+    }
 
+    // Served from the cache; the returned instance is shared and detached, so mutations must load their own copy
     public Category findByIdOrThrowBadRequestException(Long id){
-        return repository.findById(id)
-                .orElseThrow(() -> new BadRequestException("Category not found"));
+        Category category = byIdCache.get(id, key -> repository.findById(key).orElse(null));
+        if (category == null) throw new BadRequestException("Category not found");
+        return category;
+    }
+
+    // Cached categories are served from memory and only the rest go to a single IN query
+    public BatchLookupResponse<Category> findByIds(List<Long> ids) {
+        List<Long> distinctIds = BatchLookups.distinctIds(ids);
+        Map<Long, Category> found = byIdCache.getAll(distinctIds, missing -> repository.findAllById(missing).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity())));
+        return BatchLookupResponse.of(distinctIds, found.values(), Category::getId);
+    }
+
+    public CategoryCacheStats cacheStats() {
+        return new CategoryCacheStats(listCache.stats(), byIdCache.stats());
+    }
+
+    // Runs once the write is visible to other transactions, so a reload cannot see the old row
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.type() == EntityType.CATEGORY) invalidateCaches();
     }
 
     @Transactional
@@ -30,20 +86,51 @@ public class CategoryService {
         if(categoryPostRequestBody.getSlug() != null){
             newCategory.setSlug(categoryPostRequestBody.getSlug());
         } else {
-            newCategory.setSlug(newCategory.getName().toLowerCase().replaceAll(" ", "-"));
+            newCategory.setSlug(slugify(newCategory.getName()));
         }
-        return repository.save(newCategory);
+        Category savedCategory = repository.save(newCategory);
+        invalidateCaches();
+        publish(savedCategory.getId(), ChangeType.CREATED);
+        return savedCategory;
     }
 
-    public void delete(long id){repository.delete(findByIdOrThrowBadRequestException(id));}
-
     @Transactional
-    public void update(CategoryPutRequestBody categoryPutRequestBody){
-        Category updatedCategory = findByIdOrThrowBadRequestException(categoryPutRequestBody.getId());
+    public void delete(long id){
+        repository.delete(loadOrThrowBadRequestException(id));
+        invalidateCaches();
+        publish(id, ChangeType.DELETED);
+    }
+
+    public void update(CategoryPutRequestBody categoryPutRequestBody, Long expectedVersion){
+        retryExecutor.run(EntityType.CATEGORY, expectedVersion, () -> {
+            Category updatedCategory = loadOrThrowBadRequestException(categoryPutRequestBody.getId());
+            retryExecutor.checkVersion(EntityType.CATEGORY, expectedVersion, updatedCategory.getVersion());
+
+            if(categoryPutRequestBody.getName() != null) updatedCategory.setName(categoryPutRequestBody.getName());
+            if(categoryPutRequestBody.getSlug() != null) updatedCategory.setSlug(categoryPutRequestBody.getSlug());
+            repository.save(updatedCategory);
+            invalidateCaches();
+            publish(updatedCategory.getId(), ChangeType.UPDATED);
+        });
+    }
+
+    // Plain char replace: same result as replaceAll(" ", "-") without compiling a regex per call
+    public static String slugify(String name) {
+        return name.toLowerCase().replace(' ', '-');
+    }
+
+    private Category loadOrThrowBadRequestException(long id) {
+        return repository.findById(id)
+                .orElseThrow(() -> new BadRequestException("Category not found"));
+    }
+
+    private void invalidateCaches() {
+        listCache.invalidateAll();
+        byIdCache.invalidateAll();
+    }
 
-        if(categoryPutRequestBody.getName() != null) updatedCategory.setName(categoryPutRequestBody.getName());
-        if(categoryPutRequestBody.getSlug() != null) updatedCategory.setSlug(categoryPutRequestBody.getSlug());
-        repository.save(updatedCategory);
+    private void publish(long id, ChangeType change) {
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityType.CATEGORY, id, change));
     }
 
 }
@@ -0,0 +1,187 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.event.EntitiesImportedEvent;
+import barbosa.guilherme.backend.event.EntityChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Pushes committed entity changes to Server-Sent Events subscribers.
+ * Each subscriber has a bounded buffer; when a slow client overflows it, its buffer is dropped and the client
+ * receives a single "resync" event telling it to reload instead of the events it missed.
+ * Every subscriber drains on its own virtual thread, so a client that stops reading only blocks its own writes;
+ * one stuck in a write for longer than the write timeout is dropped and has to reconnect.
+ */
+@Service
+public class ChangeFeedService {
+    private static final FeedItem HEARTBEAT = new FeedItem(0, null);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong lastImportAt = new AtomicLong();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final long writeTimeoutNanos;
+    private final long importResyncDelayMs;
+
+    public ChangeFeedService(@Value("${change-feed.buffer-size}") int bufferSize,
+                             @Value("${change-feed.timeout-ms}") long timeoutMs,
+                             @Value("${change-feed.write-timeout-ms}") long writeTimeoutMs,
+                             @Value("${change-feed.import-resync-delay-ms}") long importResyncDelayMs) {
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeoutMs;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+        this.importResyncDelayMs = importResyncDelayMs;
+    }
+
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(bufferSize));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        FeedItem item = new FeedItem(sequence.incrementAndGet(), event);
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.queue.offer(item)) {
+                subscriber.overflowed = true;
+                subscriber.queue.clear();
+            }
+            schedule(subscriber);
+        }
+    }
+
+    // Bulk imports are too large to replay row by row; subscribers are told to reload instead.
+    // An import commits one event per batch, so the resync waits until the batches stop coming.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntitiesImported(EntitiesImportedEvent event) {
+        lastImportAt.set(System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${change-feed.import-resync-delay-ms}")
+    public void resyncAfterImports() {
+        long last = lastImportAt.get();
+        if (last == 0 || System.currentTimeMillis() - last < importResyncDelayMs) return;
+        if (!lastImportAt.compareAndSet(last, 0)) return;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.overflowed = true;
+            subscriber.queue.clear();
+            schedule(subscriber);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${change-feed.heartbeat-ms}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            // A full buffer already has something to send
+            if (subscriber.queue.offer(HEARTBEAT)) schedule(subscriber);
+        }
+    }
+
+    // The stuck write cannot be cancelled; the emitter is completed as soon as that write lets go of it
+    @Scheduled(fixedDelayString = "${change-feed.write-timeout-ms}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long startedAt = subscriber.writeStartedAt;
+            if (startedAt != 0 && now - startedAt > writeTimeoutNanos && subscribers.remove(subscriber)) {
+                subscriber.dropped = true;
+                subscriber.queue.clear();
+                senders.execute(() -> subscriber.emitter.completeWithError(new IOException("Write timed out")));
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            try {
+                if (subscriber.overflowed) {
+                    subscriber.overflowed = false;
+                    send(subscriber, SseEmitter.event().name("resync").id(Long.toString(sequence.get())).data(""));
+                }
+                FeedItem item;
+                while ((item = subscriber.queue.poll()) != null) {
+                    if (item == HEARTBEAT) {
+                        send(subscriber, SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        send(subscriber, SseEmitter.event().name("change")
+                                .id(Long.toString(item.sequence())).data(item.event()));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the emitter callbacks may not fire for a broken connection.
+                // A dropped subscriber was already removed and completed by the write timeout.
+                if (subscribers.remove(subscriber)) subscriber.emitter.completeWithError(e);
+                return;
+            } finally {
+                subscriber.draining.set(false);
+            }
+        } while (!subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        if (subscriber.dropped) throw new IllegalStateException("Subscriber was dropped after a stalled write");
+        subscriber.writeStartedAt = System.nanoTime();
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            subscriber.writeStartedAt = 0;
+        }
+    }
+
+    private record FeedItem(long sequence, EntityChangedEvent event) {}
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<FeedItem> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean overflowed;
+        private volatile boolean dropped;
+        private volatile long writeStartedAt;
+
+        private Subscriber(SseEmitter emitter, BlockingQueue<FeedItem> queue) {
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
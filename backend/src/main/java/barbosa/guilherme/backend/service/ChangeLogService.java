@@ -0,0 +1,137 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.event.ChangeType;
+import barbosa.guilherme.backend.event.EntitiesImportedEvent;
+import barbosa.guilherme.backend.event.EntityChangedEvent;
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.exception.BadRequestException;
+import barbosa.guilherme.backend.model.ChangeLogEntry;
+import barbosa.guilherme.backend.repository.ChangeLogRepository;
+import barbosa.guilherme.backend.responses.SyncChanges;
+import barbosa.guilherme.backend.responses.SyncResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/*
+ * Appends every mutation to change_log inside the transaction that made it, so the log and the tables commit
+ * or roll back together, and answers "what changed since version N" from it. Entries are buffered per
+ * transaction and written with one batch just before it commits.
+ */
+@Service
+public class ChangeLogService {
+    // Stamped by the database as the row is inserted, the same moment its id is taken
+    private static final String INSERT_SQL = "INSERT INTO change_log (entity_type, entity_id, change_type, changed_at) "
+            + "VALUES (?, ?, ?, CURRENT_TIMESTAMP(6))";
+    private static final String NOW_SQL = "SELECT CURRENT_TIMESTAMP(6)";
+
+    private final ChangeLogRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration settleLag;
+    private final int maxEntries;
+
+    public ChangeLogService(ChangeLogRepository repository, JdbcTemplate jdbcTemplate,
+                            @Value("${sync.settle-lag-ms}") long settleLagMs,
+                            @Value("${sync.max-entries}") int maxEntries) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.settleLag = Duration.ofMillis(settleLagMs);
+        this.maxEntries = maxEntries;
+    }
+
+    // Deferred counter adjustments are logged by the counter flush, once per flushed row
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.deferred()) return;
+        buffer(List.<Object[]>of(entry(event.type(), event.id(), event.change())));
+    }
+
+    @EventListener
+    public void onEntitiesImported(EntitiesImportedEvent event) {
+        buffer(event.ids().stream().map(id -> entry(event.type(), id, ChangeType.CREATED)).toList());
+    }
+
+    // Must run inside the transaction that made the changes
+    public void recordAll(EntityType type, Collection<Long> ids, ChangeType change) {
+        write(ids.stream().map(id -> entry(type, id, change)).toList());
+    }
+
+    private void buffer(List<Object[]> entries) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(entries);
+            return;
+        }
+        PendingEntries pending = (PendingEntries) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEntries();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.entries.addAll(entries);
+    }
+
+    private void write(List<Object[]> entries) {
+        if (!entries.isEmpty()) jdbcTemplate.batchUpdate(INSERT_SQL, entries);
+    }
+
+    private static Object[] entry(EntityType type, long id, ChangeType change) {
+        return new Object[]{type.name(), id, change.name()};
+    }
+
+    /*
+     * Versions are handed out at insert time, just before commit, so a concurrent transaction can still commit a
+     * lower version after a higher one was read. The page therefore ends at the first entry younger than the settle
+     * lag: everything before it is contiguous, and a lower id still in flight is picked up by the next call instead
+     * of being skipped. Both the stamps and the cutoff come from the database clock.
+     */
+    public SyncResponse changesSince(long since) {
+        if (since < 0) throw new BadRequestException("since must not be negative");
+        LocalDateTime cutoff = jdbcTemplate.queryForObject(NOW_SQL, Timestamp.class).toLocalDateTime().minus(settleLag);
+        List<ChangeLogEntry> page = repository.findSince(since, PageRequest.ofSize(maxEntries + 1));
+        int settled = 0;
+        while (settled < page.size() && !page.get(settled).getChangedAt().isAfter(cutoff)) settled++;
+        boolean hasMore = settled > maxEntries;
+        List<ChangeLogEntry> entries = page.subList(0, Math.min(settled, maxEntries));
+
+        // Only the last change of each row in the window matters to the client
+        Map<EntityType, Map<Long, ChangeType>> latest = new EnumMap<>(EntityType.class);
+        for (ChangeLogEntry entry : entries) {
+            latest.computeIfAbsent(entry.getEntityType(), type -> new LinkedHashMap<>())
+                    .put(entry.getEntityId(), entry.getChangeType());
+        }
+
+        Map<EntityType, SyncChanges> changes = new EnumMap<>(EntityType.class);
+        latest.forEach((type, rows) -> {
+            List<Long> changed = new ArrayList<>();
+            List<Long> deleted = new ArrayList<>();
+            rows.forEach((id, change) -> (change == ChangeType.DELETED ? deleted : changed).add(id));
+            changes.put(type, new SyncChanges(changed, deleted));
+        });
+
+        long version = entries.isEmpty() ? since : entries.get(entries.size() - 1).getId();
+        return new SyncResponse(version, changes, hasMore);
+    }
+
+    private final class PendingEntries implements TransactionSynchronization {
+        private final List<Object[]> entries = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            write(entries);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ChangeLogService.this);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.repository.CategoryRepository;
+import barbosa.guilherme.backend.repository.ProductRepository;
+import barbosa.guilherme.backend.repository.StockRepository;
+import barbosa.guilherme.backend.responses.CategoryTotals;
+import barbosa.guilherme.backend.responses.DashboardResponse;
+import barbosa.guilherme.backend.responses.DashboardStockRow;
+import barbosa.guilherme.backend.responses.DashboardTotals;
+import barbosa.guilherme.backend.responses.ProductResponse;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+ * Everything the home and stock pages used to assemble from three full lists: one aggregate query per category,
+ * one narrow stock query and a five-row read of the latest products. Overall totals are summed from the
+ * category rows, so they always agree with them.
+ * In counter mode the table lags the in-memory quantities by up to a flush, so the counters are overlaid on the
+ * stock rows and the differences carried into their categories, as the stock reads do.
+ */
+@Service
+public class DashboardService {
+    // Same threshold the frontend uses to flag an item as low on stock
+    private static final int LOW_STOCK_THRESHOLD = 5;
+    private static final int RECENT_PRODUCTS = 5;
+
+    private final CategoryRepository categoryRepository;
+    private final StockRepository stockRepository;
+    private final ProductRepository productRepository;
+    private final Optional<StockCounterEngine> counterEngine;
+
+    public DashboardService(CategoryRepository categoryRepository, StockRepository stockRepository,
+                            ProductRepository productRepository, Optional<StockCounterEngine> counterEngine) {
+        this.categoryRepository = categoryRepository;
+        this.stockRepository = stockRepository;
+        this.productRepository = productRepository;
+        this.counterEngine = counterEngine;
+    }
+
+    public DashboardResponse dashboard() {
+        List<CategoryTotals> categories = categoryRepository.findCategoryTotals();
+        List<DashboardStockRow> stock = stockRepository.findDashboardRows();
+        if (counterEngine.isPresent()) {
+            Map<Long, CategoryTotals> byCategory = new HashMap<>();
+            categories.forEach(category -> byCategory.put(category.id(), category));
+            stock = stock.stream().map(row -> overlay(counterEngine.get(), row, byCategory)).toList();
+            categories = categories.stream().map(category -> byCategory.get(category.id())).toList();
+        }
+        List<ProductResponse> recentProducts = productRepository.findLatestResponses(PageRequest.of(0, RECENT_PRODUCTS));
+
+        long products = 0, stockRows = 0, quantity = 0;
+        double value = 0;
+        for (CategoryTotals category : categories) {
+            products += category.products();
+            stockRows += category.stockRows();
+            quantity += category.quantity();
+            value += category.value();
+        }
+        long lowStock = stock.stream().filter(row -> row.quantity() <= LOW_STOCK_THRESHOLD).count();
+        long outOfStock = stock.stream().filter(row -> row.quantity() == 0).count();
+
+        DashboardTotals totals = new DashboardTotals(products, categories.size(), stockRows, quantity, value,
+                lowStock, outOfStock);
+        return new DashboardResponse(totals, categories, stock, recentProducts);
+    }
+
+    private static DashboardStockRow overlay(StockCounterEngine engine, DashboardStockRow row,
+                                             Map<Long, CategoryTotals> byCategory) {
+        long current = engine.currentQuantity(row.id()).orElse(row.quantity());
+        long difference = current - row.quantity();
+        if (difference == 0) return row;
+        byCategory.computeIfPresent(row.categoryId(), (id, category) -> new CategoryTotals(id, category.name(),
+                category.products(), category.stockRows(), category.quantity() + difference,
+                category.value() + difference * row.productPrice()));
+        return new DashboardStockRow(row.id(), (int) current, row.productId(), row.productName(), row.productPrice(),
+                row.categoryId(), row.categoryName());
+    }
+}
@@ -0,0 +1,32 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.exception.BadRequestException;
+import org.springframework.http.MediaType;
+
+public enum DataFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    DataFormat(String mediaType, String extension) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public static DataFormat from(String value) {
+        for (DataFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) return format;
+        }
+        throw new BadRequestException("Unsupported format: " + value);
+    }
+}
@@ -0,0 +1,107 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.repository.ProductRepository;
+import barbosa.guilherme.backend.repository.StockRepository;
+import barbosa.guilherme.backend.responses.ProductResponse;
+import barbosa.guilherme.backend.responses.StockResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Writes rows as they come off a JDBC cursor. Rows are DTO projections, so nothing piles up in the persistence context
+@Service
+public class ExportService {
+    private static final int FLUSH_EVERY_ROWS = 500;
+    private static final List<String> PRODUCT_COLUMNS =
+            List.of("id", "name", "description", "price", "categoryId", "categoryName");
+    private static final List<String> STOCK_COLUMNS =
+            List.of("id", "productId", "productName", "quantity", "createdAt", "updatedAt");
+
+    private final ProductRepository productRepository;
+    private final StockRepository stockRepository;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+
+    public ExportService(ProductRepository productRepository, StockRepository stockRepository,
+                         ObjectMapper objectMapper, @Value("${export.timeout-ms}") long timeoutMs) {
+        this.productRepository = productRepository;
+        this.stockRepository = stockRepository;
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+    }
+
+    // A full export outlives the container's default async timeout; only the current request gets the longer one
+    public void extendTimeout(WebRequest request) {
+        AsyncWebRequest asyncRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncRequest != null) asyncRequest.setTimeout(timeoutMs);
+    }
+
+    @Transactional
+    public void exportProducts(DataFormat format, OutputStream out) throws IOException {
+        try (Stream<ProductResponse> rows = productRepository.streamAllResponses()) {
+            write(rows.iterator(), format, PRODUCT_COLUMNS, product -> Arrays.asList(
+                    product.id(), product.name(), product.description(), product.price(),
+                    product.category().id(), product.category().name()), out);
+        }
+    }
+
+    @Transactional
+    public void exportStock(DataFormat format, OutputStream out) throws IOException {
+        try (Stream<StockResponse> rows = stockRepository.streamAllResponses()) {
+            write(rows.iterator(), format, STOCK_COLUMNS, stock -> Arrays.asList(
+                    stock.id(), stock.product().id(), stock.product().name(), stock.quantity(),
+                    stock.createdAt(), stock.updatedAt()), out);
+        }
+    }
+
+    private <T> void write(Iterator<T> rows, DataFormat format, List<String> columns,
+                           Function<T, List<Object>> csvValues, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == DataFormat.CSV) writeCsvLine(writer, columns);
+
+        int written = 0;
+        while (rows.hasNext()) {
+            T row = rows.next();
+            if (format == DataFormat.CSV) {
+                writeCsvLine(writer, csvValues.apply(row));
+            } else {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+            if (++written % FLUSH_EVERY_ROWS == 0) writer.flush();
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvLine(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) writer.write(',');
+            Object value = values.get(i);
+            if (value != null) writer.write(escapeCsv(value.toString()));
+        }
+        writer.write('\n');
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
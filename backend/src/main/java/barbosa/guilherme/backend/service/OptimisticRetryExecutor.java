@@ -0,0 +1,90 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.responses.ConflictStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+ * Runs load-modify-save updates in their own transaction and re-runs them on a @Version conflict, so a merge
+ * of only the fields the client sent is applied to fresh state. Updates pinned with If-Match are never retried:
+ * the client's precondition no longer holds and it gets 412 instead.
+ */
+@Component
+public class OptimisticRetryExecutor {
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final Map<EntityType, Counters> counters = new EnumMap<>(EntityType.class);
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager,
+                                   @Value("${optimistic-retry.max-attempts}") int maxAttempts) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        for (EntityType type : EntityType.values()) counters.put(type, new Counters());
+    }
+
+    public <T> T execute(EntityType type, Long expectedVersion, Supplier<T> work) {
+        boolean retryable = expectedVersion == null;
+        // Inside a caller's transaction the stale state cannot be thrown away, so there is a single attempt
+        int attempts = retryable && !TransactionSynchronizationManager.isActualTransactionActive() ? maxAttempts : 1;
+        Counters typeCounters = counters.get(type);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                typeCounters.conflicts.increment();
+                if (!retryable) {
+                    typeCounters.preconditionFailures.increment();
+                    throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                            "The " + type.name().toLowerCase() + " was modified concurrently", e);
+                }
+                if (attempt >= attempts) {
+                    typeCounters.exhausted.increment();
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "The " + type.name().toLowerCase() + " is being modified concurrently, try again", e);
+                }
+                typeCounters.retries.increment();
+            }
+        }
+    }
+
+    public void run(EntityType type, Long expectedVersion, Runnable work) {
+        execute(type, expectedVersion, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // Called with the freshly loaded version before any change is applied
+    public void checkVersion(EntityType type, Long expectedVersion, Long currentVersion) {
+        if (expectedVersion == null || expectedVersion.equals(currentVersion)) return;
+        counters.get(type).preconditionFailures.increment();
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "Version " + expectedVersion + " is stale, the current version is " + currentVersion);
+    }
+
+    public Map<EntityType, ConflictStats> stats() {
+        Map<EntityType, ConflictStats> stats = new EnumMap<>(EntityType.class);
+        counters.forEach((type, c) -> stats.put(type, new ConflictStats(c.conflicts.sum(), c.retries.sum(),
+                c.exhausted.sum(), c.preconditionFailures.sum())));
+        return stats;
+    }
+
+    private static final class Counters {
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+        private final LongAdder preconditionFailures = new LongAdder();
+    }
+}
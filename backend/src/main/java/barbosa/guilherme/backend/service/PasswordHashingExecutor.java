@@ -0,0 +1,90 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.exception.ServiceOverloadedException;
+import barbosa.guilherme.backend.responses.PasswordHashingStats;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+ * Runs BCrypt work on a small dedicated pool so login bursts cannot occupy every request thread.
+ * When the queue is full the caller gets a ServiceOverloadedException (503 with Retry-After) immediately.
+ */
+@Component
+public class PasswordHashingExecutor {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hashCount = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder,
+                                   @Value("${password-hashing.threads}") int threads,
+                                   @Value("${password-hashing.queue-size}") int queueSize,
+                                   @Value("${password-hashing.retry-after-seconds}") long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public PasswordHashingStats stats() {
+        long count = hashCount.sum();
+        double averageMillis = count == 0 ? 0 : hashNanos.sum() / (double) count / 1_000_000;
+        return new PasswordHashingStats(executor.getQueue().size(), executor.getActiveCount(),
+                executor.getCompletedTaskCount(), rejected.sum(), averageMillis, maxHashNanos.get() / 1_000_000.0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> hashing) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    return hashing.get();
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    hashCount.increment();
+                    hashNanos.add(elapsed);
+                    maxHashNanos.accumulate(elapsed);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Too many authentication requests, try again later", retryAfterSeconds);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.event.EntitiesImportedEvent;
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.exception.BadRequestException;
+import barbosa.guilherme.backend.repository.CategoryRepository;
+import barbosa.guilherme.backend.requests.ProductPostRequestBody;
+import barbosa.guilherme.backend.responses.ImportResult;
+import barbosa.guilherme.backend.responses.ImportRowError;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+ * Reads an upload line by line, validates each row and inserts valid rows with JDBC batches.
+ * Hibernate cannot batch IDENTITY inserts, so this path writes through JdbcTemplate; with
+ * rewriteBatchedStatements=true the MySQL driver sends each batch as a single multi-row INSERT.
+ */
+@Service
+public class ProductImportService {
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO products (name, description, price, category_id, version) VALUES (?, ?, ?, ?, 0)";
+    private static final List<String> CSV_COLUMNS = List.of("name", "description", "price", "categoryId");
+
+    private record PendingRow(long line, ProductPostRequestBody body) {}
+
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public ProductImportService(CategoryRepository categoryRepository, JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                                ObjectMapper objectMapper, Validator validator,
+                                @Value("${product.import.batch-size}") int batchSize,
+                                @Value("${product.import.max-reported-errors}") int maxReportedErrors) {
+        this.categoryRepository = categoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ImportResult importProducts(InputStream in, DataFormat format) throws IOException {
+        Map<Long, Boolean> knownCategories = new HashMap<>();
+        List<ImportRowError> errors = new ArrayList<>();
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        long imported = 0;
+        long failed = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Map<String, Integer> csvHeader = format == DataFormat.CSV ? readCsvHeader(reader.readLine()) : null;
+        long lineNumber = format == DataFormat.CSV ? 1 : 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+
+            String error;
+            ProductPostRequestBody row = null;
+            try {
+                row = format == DataFormat.CSV ? parseCsvRow(line, csvHeader) : parseJsonRow(line);
+                error = validate(row, knownCategories);
+            } catch (JsonProcessingException e) {
+                error = "Malformed row: " + e.getOriginalMessage();
+            } catch (IllegalArgumentException e) {
+                error = "Malformed row: " + e.getMessage();
+            }
+
+            if (error != null) {
+                failed++;
+                report(errors, lineNumber, error);
+                continue;
+            }
+            batch.add(new PendingRow(lineNumber, row));
+            if (batch.size() == batchSize) {
+                int stored = insert(batch, errors);
+                imported += stored;
+                failed += batch.size() - stored;
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            int stored = insert(batch, errors);
+            imported += stored;
+            failed += batch.size() - stored;
+        }
+
+        return new ImportResult(imported, failed, errors);
+    }
+
+    // A row the database rejects rolls back its whole batch; the batch is then retried row by row to isolate it
+    private int insert(List<PendingRow> rows, List<ImportRowError> errors) {
+        try {
+            return insertBatch(rows);
+        } catch (DataAccessException e) {
+            int stored = 0;
+            for (PendingRow row : rows) {
+                try {
+                    stored += insertBatch(List.of(row));
+                } catch (DataAccessException rowFailure) {
+                    report(errors, row.line(), "Rejected by the database: " + rowFailure.getMostSpecificCause().getMessage());
+                }
+            }
+            return stored;
+        }
+    }
+
+    private void report(List<ImportRowError> errors, long line, String message) {
+        if (errors.size() < maxReportedErrors) errors.add(new ImportRowError(line, message));
+    }
+
+    private int insertBatch(List<PendingRow> rows) {
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(
+                    connection -> connection.prepareStatement(INSERT_PRODUCT_SQL, Statement.RETURN_GENERATED_KEYS),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ProductPostRequestBody row = rows.get(i).body();
+                            ps.setString(1, row.getName());
+                            if (row.getDescription() == null) ps.setNull(2, Types.VARCHAR);
+                            else ps.setString(2, row.getDescription());
+                            ps.setDouble(3, row.getPrice());
+                            ps.setLong(4, row.getCategoryId());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return rows.size();
+                        }
+                    },
+                    keyHolder);
+            List<Long> ids = keyHolder.getKeyList().stream()
+                    .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                    .toList();
+            eventPublisher.publishEvent(new EntitiesImportedEvent(EntityType.PRODUCT, ids));
+        });
+        return rows.size();
+    }
+
+    private String validate(ProductPostRequestBody row, Map<Long, Boolean> knownCategories) {
+        Set<ConstraintViolation<ProductPostRequestBody>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        // Each distinct category is looked up once per upload
+        if (!knownCategories.computeIfAbsent(row.getCategoryId(), categoryRepository::existsById)) {
+            return "Category not found: " + row.getCategoryId();
+        }
+        return null;
+    }
+
+    private ProductPostRequestBody parseJsonRow(String line) throws JsonProcessingException {
+        return objectMapper.readValue(line, ProductPostRequestBody.class);
+    }
+
+    private static Map<String, Integer> readCsvHeader(String headerLine) {
+        if (headerLine == null) throw new BadRequestException("CSV upload is empty");
+        List<String> columns = splitCsvLine(headerLine);
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) indexes.put(columns.get(i).trim(), i);
+        for (String required : CSV_COLUMNS) {
+            if (!required.equals("description") && !indexes.containsKey(required)) {
+                throw new BadRequestException("CSV header must contain columns " + CSV_COLUMNS);
+            }
+        }
+        return indexes;
+    }
+
+    private static ProductPostRequestBody parseCsvRow(String line, Map<String, Integer> header) {
+        List<String> values = splitCsvLine(line);
+        ProductPostRequestBody row = new ProductPostRequestBody();
+        row.setName(column(values, header, "name"));
+        row.setDescription(column(values, header, "description"));
+        String price = column(values, header, "price");
+        row.setPrice(price == null ? null : Double.valueOf(price.trim()));
+        String categoryId = column(values, header, "categoryId");
+        row.setCategoryId(categoryId == null ? null : Long.valueOf(categoryId.trim()));
+        return row;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> header, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= values.size()) return null;
+        String value = values.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    // RFC 4180 quoting within a single physical line
+    private static List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("Unterminated quoted value");
+        values.add(current.toString());
+        return values;
+    }
+}
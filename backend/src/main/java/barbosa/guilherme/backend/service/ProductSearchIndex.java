@@ -0,0 +1,166 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.event.ChangeType;
+import barbosa.guilherme.backend.event.EntitiesImportedEvent;
+import barbosa.guilherme.backend.event.EntityChangedEvent;
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.repository.ProductRepository;
+import barbosa.guilherme.backend.responses.ProductResponse;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+@Component
+public class ProductSearchIndex {
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int EXACT_TERM_BONUS = 2;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    private final ProductRepository repository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (product id -> weight)
+    private TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private Map<Long, ProductResponse> documents = new HashMap<>();
+    private Map<Long, Set<String>> termsByProduct = new HashMap<>();
+
+    public ProductSearchIndex(ProductRepository repository) {
+        this.repository = repository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        TreeMap<String, Map<Long, Integer>> newPostings = new TreeMap<>();
+        Map<Long, ProductResponse> newDocuments = new HashMap<>();
+        Map<Long, Set<String>> newTerms = new HashMap<>();
+        for (ProductResponse product : repository.findAllResponses()) {
+            addDocument(product, newPostings, newDocuments, newTerms);
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            documents = newDocuments;
+            termsByProduct = newTerms;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.type() == EntityType.CATEGORY && event.change() == ChangeType.UPDATED) {
+            // Indexed documents embed the category name, so refresh the ones pointing at it
+            List<ProductResponse> products = repository.findResponsesByCategoryId(event.id());
+            lock.writeLock().lock();
+            try {
+                products.forEach(product -> documents.replace(product.id(), product));
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        if (event.type() != EntityType.PRODUCT) return;
+
+        Optional<ProductResponse> product = event.change() == ChangeType.DELETED
+                ? Optional.empty()
+                : repository.findResponseById(event.id());
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(event.id());
+            product.ifPresent(p -> addDocument(p, postings, documents, termsByProduct));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntitiesImported(EntitiesImportedEvent event) {
+        if (event.type() != EntityType.PRODUCT) return;
+
+        List<ProductResponse> products = repository.findResponsesByIdIn(event.ids());
+        lock.writeLock().lock();
+        try {
+            products.forEach(product -> addDocument(product, postings, documents, termsByProduct));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ProductResponse> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query).stream().distinct().toList();
+        if (queryTerms.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            // Every query term must match (as a prefix) for a product to be returned
+            Map<Long, Integer> scores = null;
+            for (String queryTerm : queryTerms) {
+                Map<Long, Integer> termScores = new HashMap<>();
+                for (Map.Entry<String, Map<Long, Integer>> entry
+                        : postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+                    int bonus = entry.getKey().equals(queryTerm) ? EXACT_TERM_BONUS : 1;
+                    entry.getValue().forEach((id, weight) -> termScores.merge(id, weight * bonus, Math::max));
+                }
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) return List.of();
+            }
+
+            Map<Long, Integer> ranked = scores;
+            return ranked.keySet().stream()
+                    .map(documents::get)
+                    .sorted(Comparator.<ProductResponse>comparingInt(p -> -ranked.get(p.id()))
+                            .thenComparingInt(p -> p.name().length())
+                            .thenComparing(ProductResponse::id))
+                    .limit(limit)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeDocument(long id) {
+        Set<String> terms = termsByProduct.remove(id);
+        documents.remove(id);
+        if (terms == null) return;
+        for (String term : terms) {
+            Map<Long, Integer> ids = postings.get(term);
+            if (ids == null) continue;
+            ids.remove(id);
+            if (ids.isEmpty()) postings.remove(term);
+        }
+    }
+
+    private static void addDocument(ProductResponse product, TreeMap<String, Map<Long, Integer>> postings,
+                                    Map<Long, ProductResponse> documents, Map<Long, Set<String>> termsByProduct) {
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(product.name()).forEach(term -> weights.merge(term, NAME_WEIGHT, Integer::sum));
+        tokenize(product.description()).forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(product.id(), weight));
+        documents.put(product.id(), product);
+        termsByProduct.put(product.id(), weights.keySet());
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARATORS.split(normalized.toLowerCase(Locale.ROOT)))
+                .filter(term -> !term.isEmpty())
+                .toList();
+    }
+}
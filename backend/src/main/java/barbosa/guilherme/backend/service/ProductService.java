@@ -1,28 +1,112 @@
 package barbosa.guilherme.backend.service;
 
+import barbosa.guilherme.backend.event.ChangeType;
+import barbosa.guilherme.backend.event.EntityChangedEvent;
+import barbosa.guilherme.backend.event.EntityType;
 import barbosa.guilherme.backend.exception.BadRequestException;
 import barbosa.guilherme.backend.model.Category;
 import barbosa.guilherme.backend.model.Product;
+import barbosa.guilherme.backend.repository.FieldsetRepository;
 import barbosa.guilherme.backend.repository.ProductRepository;
 import barbosa.guilherme.backend.requests.ProductPostRequestBody;
 import barbosa.guilherme.backend.requests.ProductPutRequestBody;
+import barbosa.guilherme.backend.util.BatchLookups;
+import barbosa.guilherme.backend.responses.BatchLookupResponse;
+import barbosa.guilherme.backend.responses.ProductPageResponse;
+import barbosa.guilherme.backend.responses.ProductResponse;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ProductService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 100;
+
     private final ProductRepository repository;
     private final CategoryService categoryService;
+    private final ProductSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FieldsetRepository fieldsetRepository;
+    private final OptimisticRetryExecutor retryExecutor;
 
-    public ProductService(ProductRepository repository, CategoryService categoryService) {
+    public ProductService(ProductRepository repository, CategoryService categoryService,
+                          ProductSearchIndex searchIndex, ApplicationEventPublisher eventPublisher,
+                          FieldsetRepository fieldsetRepository, OptimisticRetryExecutor retryExecutor) {
+        this.retryExecutor = retryExecutor;
         this.repository = repository;
+        this.fieldsetRepository = fieldsetRepository;
         this.categoryService = categoryService;
+        this.searchIndex = searchIndex;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public List<ProductResponse> listAll() {
+        return repository.findAllResponses();
     }
 
-    public List<Product> listAll() {
-        return repository.findAll();
+    public List<Map<String, Object>> listAll(String fields) {
+        return fieldsetRepository.findAll(EntityType.PRODUCT, fields);
+    }
+
+    public ProductPageResponse listPage(String cursor, Integer size, Long categoryId,
+                                        Double minPrice, Double maxPrice, String namePrefix) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new BadRequestException("minPrice cannot be greater than maxPrice");
+        }
+        String prefix = namePrefix == null || namePrefix.isBlank() ? null : escapeLike(namePrefix.trim());
+
+        // Fetch one extra row to know whether another page exists without a count query
+        List<ProductResponse> rows = repository.findPageAfter(decodeCursor(cursor), categoryId, minPrice, maxPrice,
+                prefix, PageRequest.ofSize(pageSize + 1));
+
+        if (rows.size() <= pageSize) {
+            return new ProductPageResponse(rows, null);
+        }
+        List<ProductResponse> items = rows.subList(0, pageSize);
+        return new ProductPageResponse(items, encodeCursor(items.get(pageSize - 1).id()));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0L;
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public List<ProductResponse> search(String query, Integer limit) {
+        int maxResults = limit == null ? DEFAULT_SEARCH_LIMIT : Math.min(Math.max(limit, 1), MAX_SEARCH_LIMIT);
+        return searchIndex.search(query, maxResults);
+    }
+
+    public ProductResponse findResponseByIdOrThrowBadRequestException(long id) {
+        return repository.findResponseById(id)
+                .orElseThrow(() -> new BadRequestException("Product not found"));
+    }
+
+    public BatchLookupResponse<ProductResponse> findResponsesByIds(List<Long> ids) {
+        List<Long> distinctIds = BatchLookups.distinctIds(ids);
+        return BatchLookupResponse.of(distinctIds, repository.findResponsesByIdIn(distinctIds), ProductResponse::id);
     }
 
     public Product findByIdOrThrowBadRequestException(Long id){
@@ -38,31 +122,38 @@ public class ProductService {
         newProduct.setPrice(productPostRequestBody.getPrice());
         Category category = categoryService.findByIdOrThrowBadRequestException(productPostRequestBody.getCategoryId());
         newProduct.setCategory(category);
-        return repository.save(newProduct);
+        Product savedProduct = repository.save(newProduct);
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityType.PRODUCT, savedProduct.getId(), ChangeType.CREATED));
+        return savedProduct;
     }
 
+    @Transactional
     public void delete(long id) {
         repository.delete(findByIdOrThrowBadRequestException(id));
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityType.PRODUCT, id, ChangeType.DELETED));
     }
 
-    @Transactional
-    public void update(ProductPutRequestBody productPutRequestBody){
-        Product savedProduct = findByIdOrThrowBadRequestException(productPutRequestBody.getId());
+    public void update(ProductPutRequestBody productPutRequestBody, Long expectedVersion){
+        retryExecutor.run(EntityType.PRODUCT, expectedVersion, () -> {
+            Product savedProduct = findByIdOrThrowBadRequestException(productPutRequestBody.getId());
+            retryExecutor.checkVersion(EntityType.PRODUCT, expectedVersion, savedProduct.getVersion());
 
-        if (productPutRequestBody.getName() != null && !productPutRequestBody.getName().isBlank()) {
-            savedProduct.setName(productPutRequestBody.getName());
-        }
-        if (productPutRequestBody.getDescription() != null) {
-            savedProduct.setDescription(productPutRequestBody.getDescription());
-        }
-        if(productPutRequestBody.getPrice() != null && productPutRequestBody.getPrice() >= 0){
-            savedProduct.setPrice(productPutRequestBody.getPrice());
-        }
-        if(productPutRequestBody.getCategoryId() != null){
-            Category category = categoryService.findByIdOrThrowBadRequestException(productPutRequestBody.getCategoryId());
-            savedProduct.setCategory(category);
-        }
+            if (productPutRequestBody.getName() != null && !productPutRequestBody.getName().isBlank()) {
+                savedProduct.setName(productPutRequestBody.getName());
+            }
+            if (productPutRequestBody.getDescription() != null) {
+                savedProduct.setDescription(productPutRequestBody.getDescription());
+            }
+            if(productPutRequestBody.getPrice() != null && productPutRequestBody.getPrice() >= 0){
+                savedProduct.setPrice(productPutRequestBody.getPrice());
+            }
+            if(productPutRequestBody.getCategoryId() != null){
+                Category category = categoryService.findByIdOrThrowBadRequestException(productPutRequestBody.getCategoryId());
+                savedProduct.setCategory(category);
+            }
 
-        repository.save(savedProduct);
+            repository.save(savedProduct);
+            eventPublisher.publishEvent(new EntityChangedEvent(EntityType.PRODUCT, savedProduct.getId(), ChangeType.UPDATED));
+        });
     }
 }
@@ -0,0 +1,324 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.event.ChangeType;
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.exception.BadRequestException;
+import barbosa.guilherme.backend.repository.StockRepository;
+import barbosa.guilherme.backend.responses.StockResponse;
+import barbosa.guilherme.backend.service.StockLedgerService.MovementKey;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Keeps stock quantities in memory and writes coalesced deltas to the stock table in batches.
+ * Adjustments are journaled before they are acknowledged and the journal is replayed at startup. An acknowledged
+ * adjustment has reached the OS, so it survives a process crash; the journal is only fsynced when a flush seals its
+ * segment, so a host crash or power loss can lose up to one flush interval of acknowledged adjustments.
+ * Each batch records the newest journal segment it covers in the same transaction, so segments that survive a
+ * crash after the commit are recognized as applied and not replayed twice.
+ * Assumes this node is the only writer of adjustments while the mode is enabled.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stock.counter.enabled", havingValue = "true")
+public class StockCounterEngine {
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE stock SET quantity = quantity + ?, updated_at = ?, version = version + 1 WHERE id = ?";
+    private static final String SELECT_WATERMARK_SQL = "SELECT last_segment FROM stock_counter_watermark WHERE id = 1";
+    private static final String UPDATE_WATERMARK_SQL = "UPDATE stock_counter_watermark SET last_segment = ? WHERE id = 1";
+    private static final String INSERT_WATERMARK_SQL =
+            "INSERT INTO stock_counter_watermark (id, last_segment) VALUES (1, ?)";
+    private static final int DRAIN_STRIPES = 64;
+
+    private final StockRepository repository;
+    private final StockLedgerService ledgerService;
+    private final ChangeLogService changeLogService;
+    private final TableVersionRegistry versions;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockCounterJournal journal;
+
+    private final ConcurrentHashMap<Long, AtomicLong> quantities = new ConcurrentHashMap<>();
+    // Coalesced per stock, reason and acting user so the ledger keeps who moved what
+    private final ConcurrentHashMap<MovementKey, LongAdder> pending = new ConcurrentHashMap<>();
+    // Adjustments share the read side of their stock's stripe; a discard takes the write side of that stripe and
+    // draining pending deltas and rotating the journal take the write side of every stripe
+    private final ReentrantReadWriteLock[] drainLocks = new ReentrantReadWriteLock[DRAIN_STRIPES];
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Per stock sums drained by a flush whose batch has not committed yet; a counter loaded meanwhile adds them
+    private final Map<Long, Long> inFlight = new HashMap<>();
+    // Guards inFlight and is held while a batch commits, so a load sees the row either before or after it
+    private final ReentrantLock persistLock = new ReentrantLock();
+    private final List<Path> sealedSegments = new ArrayList<>();
+
+    public StockCounterEngine(StockRepository repository, StockLedgerService ledgerService,
+                              ChangeLogService changeLogService, TableVersionRegistry versions, JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${stock.counter.journal-dir}") String journalDir) {
+        this.repository = repository;
+        this.ledgerService = ledgerService;
+        this.changeLogService = changeLogService;
+        this.versions = versions;
+        this.jdbcTemplate = jdbcTemplate;
+        // Batches commit on their own even when a flush is triggered from inside a caller's transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.journal = new StockCounterJournal(Path.of(journalDir));
+        for (int i = 0; i < DRAIN_STRIPES; i++) drainLocks[i] = new ReentrantReadWriteLock();
+    }
+
+    @PostConstruct
+    public void replayJournal() {
+        long watermark = jdbcTemplate.queryForList(SELECT_WATERMARK_SQL, Long.class).stream().findFirst().orElse(0L);
+        try {
+            List<Path> leftovers = journal.sealedSegments();
+            List<Path> unapplied = leftovers.stream()
+                    .filter(segment -> StockCounterJournal.segmentNumber(segment) > watermark)
+                    .toList();
+            Map<MovementKey, Long> deltas = StockCounterJournal.read(unapplied);
+            if (!deltas.isEmpty()) {
+                log.info("Replaying {} journaled stock deltas", deltas.size());
+                persist(deltas, StockCounterJournal.segmentNumber(unapplied.get(unapplied.size() - 1)));
+            }
+            journal.delete(leftovers);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replay stock journal", e);
+        }
+        // Numbering continues past the watermark even when every segment file is gone
+        journal.open(watermark);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        journal.close();
+    }
+
+    public long adjust(long id, int delta, String reason) {
+        ReentrantReadWriteLock drainLock = drainLock(id);
+        drainLock.readLock().lock();
+        try {
+            // Looked up under the lock so a concurrent discard cannot leave us updating a dropped counter
+            AtomicLong counter = quantities.computeIfAbsent(id, this::loadQuantity);
+            long updated;
+            while (true) {
+                long current = counter.get();
+                updated = current + delta;
+                if (updated < 0) throw new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient stock");
+                if (counter.compareAndSet(current, updated)) break;
+            }
+            append(id, delta, reason);
+            return updated;
+        } finally {
+            drainLock.readLock().unlock();
+        }
+    }
+
+    public OptionalLong currentQuantity(long id) {
+        AtomicLong counter = quantities.get(id);
+        return counter == null ? OptionalLong.empty() : OptionalLong.of(counter.get());
+    }
+
+    public StockResponse overlay(StockResponse stock) {
+        AtomicLong counter = quantities.get(stock.id());
+        if (counter == null) return stock;
+        return new StockResponse(stock.id(), stock.product(), (int) counter.get(), stock.version(),
+                stock.createdAt(), stock.updatedAt());
+    }
+
+    /*
+     * An update writes an absolute quantity. It is applied to the counter as a delta once the update's transaction
+     * has committed, so a rolled back or retried update leaves the counter alone and the row is never reloaded
+     * while deltas for it are still in flight.
+     */
+    public void setAfterCommit(long id, int quantity) {
+        afterCommit(() -> set(id, quantity));
+    }
+
+    // Drops the counter of a deleted row once the delete has committed; deltas still pending for it are moot
+    public void discardAfterCommit(long id) {
+        afterCommit(() -> discard(id));
+    }
+
+    @Scheduled(fixedDelayString = "${stock.counter.flush-interval-ms}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<MovementKey, Long> deltas = new HashMap<>();
+            lockAllStripes();
+            try {
+                pending.forEach((key, adder) -> {
+                    long delta = adder.sumThenReset();
+                    if (delta != 0) deltas.put(key, delta);
+                });
+                sealedSegments.add(journal.rotate());
+                persistLock.lock();
+                try {
+                    deltas.forEach((key, delta) -> inFlight.merge(key.stockId(), delta, Long::sum));
+                } finally {
+                    persistLock.unlock();
+                }
+            } finally {
+                unlockAllStripes();
+            }
+
+            boolean persisted = false;
+            persistLock.lock();
+            try {
+                // The drained deltas cover every segment sealed so far, including those of earlier failed flushes
+                long watermark = StockCounterJournal.segmentNumber(sealedSegments.get(sealedSegments.size() - 1));
+                if (!deltas.isEmpty()) persist(deltas, watermark);
+                inFlight.clear();
+                persisted = true;
+            } catch (RuntimeException e) {
+                log.error("Failed to flush {} stock deltas", deltas.size(), e);
+            } finally {
+                persistLock.unlock();
+            }
+            if (!persisted) {
+                restore(deltas);
+                return;
+            }
+            journal.delete(sealedSegments);
+            sealedSegments.clear();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void set(long id, int quantity) {
+        ReentrantReadWriteLock drainLock = drainLock(id);
+        drainLock.readLock().lock();
+        try {
+            AtomicLong counter = quantities.computeIfAbsent(id, this::loadQuantity);
+            long delta = quantity - counter.getAndSet(quantity);
+            if (delta == 0) return;
+            append(id, (int) delta, "SET");
+        } finally {
+            drainLock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Puts the deltas of a failed batch back; their segments stay on disk until a later flush succeeds.
+     * Every live counter includes them, either from before the drain or through inFlight when it was reloaded.
+     * A counter discarded and not reloaded since is gone with its row, so its deltas are dropped with it.
+     */
+    private void restore(Map<MovementKey, Long> deltas) {
+        lockAllStripes();
+        persistLock.lock();
+        try {
+            deltas.forEach((key, delta) -> {
+                if (quantities.containsKey(key.stockId())) {
+                    pending.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+                }
+            });
+            inFlight.clear();
+        } finally {
+            persistLock.unlock();
+            unlockAllStripes();
+        }
+    }
+
+    private void discard(long id) {
+        ReentrantReadWriteLock drainLock = drainLock(id);
+        drainLock.writeLock().lock();
+        try {
+            quantities.remove(id);
+            pending.keySet().removeIf(key -> key.stockId() == id);
+        } finally {
+            drainLock.writeLock().unlock();
+        }
+    }
+
+    private ReentrantReadWriteLock drainLock(long id) {
+        return drainLocks[Math.floorMod(Long.hashCode(id), DRAIN_STRIPES)];
+    }
+
+    // Always in index order so two threads taking every stripe cannot deadlock
+    private void lockAllStripes() {
+        for (ReentrantReadWriteLock lock : drainLocks) lock.writeLock().lock();
+    }
+
+    private void unlockAllStripes() {
+        for (int i = DRAIN_STRIPES - 1; i >= 0; i--) drainLocks[i].writeLock().unlock();
+    }
+
+    // Runs under the stripe's read lock; the username is taken from the caller's security context
+    private void append(long id, int delta, String reason) {
+        MovementKey key = new MovementKey(id, reason, StockLedgerService.currentUsername());
+        pending.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+        journal.append(key, delta);
+    }
+
+    private void persist(Map<MovementKey, Long> deltas, long watermark) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<Long, Long> byStock = new HashMap<>();
+        deltas.forEach((key, delta) -> byStock.merge(key.stockId(), delta, Long::sum));
+        List<Object[]> batch = new ArrayList<>(byStock.size());
+        byStock.forEach((id, delta) -> batch.add(new Object[]{delta, now, id}));
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, batch);
+            ledgerService.recordAll(deltas);
+            // One change log entry per flushed row instead of one per adjustment
+            changeLogService.recordAll(EntityType.STOCK, byStock.keySet(), ChangeType.UPDATED);
+            versions.touch(EntityType.STOCK);
+            if (jdbcTemplate.update(UPDATE_WATERMARK_SQL, watermark) == 0) {
+                jdbcTemplate.update(INSERT_WATERMARK_SQL, watermark);
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private AtomicLong loadQuantity(long id) {
+        persistLock.lock();
+        try {
+            long quantity = repository.findQuantityById(id)
+                    .orElseThrow(() -> new BadRequestException("Stock not found"));
+            return new AtomicLong(quantity + inFlight.getOrDefault(id, 0L));
+        } finally {
+            persistLock.unlock();
+        }
+    }
+}
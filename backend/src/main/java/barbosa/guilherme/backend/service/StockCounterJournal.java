@@ -0,0 +1,193 @@
+package barbosa.guilherme.backend.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/*
+ * Append-only segments of (stock id, delta, reason, user) records backing the in-memory counters.
+ * Appends are group committed: records queue up while a write is in progress and the next writer hands all of
+ * them to the OS in one gathering write. Segments are fsynced only when they are sealed.
+ */
+class StockCounterJournal {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    // Record: total length, stock id, delta, then reason and username as length-prefixed UTF-8 (-1 for no user)
+    private static final int FIXED_SIZE = Long.BYTES + Integer.BYTES + 2 * Short.BYTES;
+
+    private final Path directory;
+    private long nextSegment;
+    private Path activePath;
+    private FileChannel active;
+
+    private final Object queueLock = new Object();
+    private List<ByteBuffer> queued = new ArrayList<>();
+    private long queuedUpTo;
+    // Held while a group of queued records is written; written only advances under it
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile long writtenUpTo;
+    // A failed group may have carried records of other callers, so every later append fails too
+    private volatile IOException failure;
+
+    StockCounterJournal(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            nextSegment = sealedSegments().stream().mapToLong(StockCounterJournal::segmentNumber).max().orElse(0) + 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open stock journal at " + directory, e);
+        }
+    }
+
+    // Segments left over from a previous run, oldest first
+    List<Path> sealedSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)))
+                    .toList();
+        }
+    }
+
+    static Map<StockLedgerService.MovementKey, Long> read(List<Path> segments) throws IOException {
+        Map<StockLedgerService.MovementKey, Long> deltas = new HashMap<>();
+        for (Path segment : segments) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+            // A torn trailing record from a crash is ignored
+            while (buffer.remaining() >= Integer.BYTES) {
+                int length = buffer.getInt();
+                if (buffer.remaining() < length) break;
+                long stockId = buffer.getLong();
+                long delta = buffer.getInt();
+                String reason = readString(buffer);
+                String username = readString(buffer);
+                deltas.merge(new StockLedgerService.MovementKey(stockId, reason, username), delta, Long::sum);
+            }
+        }
+        return deltas;
+    }
+
+    // Continues numbering after both the segments on disk and the given already-applied segment
+    void open(long appliedSegment) {
+        nextSegment = Math.max(nextSegment, appliedSegment + 1);
+        open();
+    }
+
+    private void open() {
+        try {
+            activePath = directory.resolve(SEGMENT_PREFIX + nextSegment++ + SEGMENT_SUFFIX);
+            active = FileChannel.open(activePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open stock journal segment", e);
+        }
+    }
+
+    // Returns once the record has reached the OS, so a process crash loses nothing; a host crash can until the seal
+    void append(StockLedgerService.MovementKey key, int delta) {
+        byte[] reason = key.reason().getBytes(StandardCharsets.UTF_8);
+        byte[] username = key.username() == null ? null : key.username().getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_SIZE + reason.length + (username == null ? 0 : username.length);
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + length)
+                .putInt(length)
+                .putLong(key.stockId())
+                .putInt(delta)
+                .putShort((short) reason.length)
+                .put(reason)
+                .putShort((short) (username == null ? -1 : username.length));
+        if (username != null) record.put(username);
+        record.flip();
+
+        long sequence;
+        synchronized (queueLock) {
+            queued.add(record);
+            sequence = ++queuedUpTo;
+        }
+        writeLock.lock();
+        try {
+            if (failure != null) throw new UncheckedIOException("Stock journal failed earlier", failure);
+            // A writer that held the lock meanwhile may already have written this record with its group
+            if (writtenUpTo < sequence) writeQueued();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void writeQueued() {
+        List<ByteBuffer> group;
+        long upTo;
+        synchronized (queueLock) {
+            group = queued;
+            upTo = queuedUpTo;
+            queued = new ArrayList<>();
+        }
+        ByteBuffer[] buffers = group.toArray(ByteBuffer[]::new);
+        try {
+            long remaining = group.stream().mapToLong(ByteBuffer::remaining).sum();
+            while (remaining > 0) remaining -= active.write(buffers);
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("Could not append to stock journal", e);
+        }
+        writtenUpTo = upTo;
+    }
+
+    // Callers must hold every stripe of the engine's drain lock so no append races the swap
+    Path rotate() {
+        writeLock.lock();
+        try {
+            Path sealed = activePath;
+            try {
+                active.force(true);
+                active.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not seal stock journal segment", e);
+            }
+            open();
+            return sealed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void delete(List<Path> segments) {
+        for (Path segment : segments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not delete stock journal segment " + segment, e);
+            }
+        }
+    }
+
+    void close() {
+        try {
+            active.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close stock journal", e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,191 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.exception.BadRequestException;
+import barbosa.guilherme.backend.model.StockLedgerGap;
+import barbosa.guilherme.backend.model.StockMovement;
+import barbosa.guilherme.backend.model.StockSnapshot;
+import barbosa.guilherme.backend.repository.StockLedgerGapRepository;
+import barbosa.guilherme.backend.repository.StockMovementRepository;
+import barbosa.guilherme.backend.repository.StockSnapshotRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+public class StockLedgerService {
+    public static final int MAX_MOVEMENTS = 1000;
+
+    private static final String INSERT_MOVEMENT_SQL =
+            "INSERT INTO stock_movements (stock_id, delta, reason, username, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String OPENING_BALANCE_SQL = """
+            INSERT INTO stock_movements (stock_id, delta, reason, username, created_at)
+            SELECT s.id, s.quantity, 'OPENING_BALANCE', NULL, COALESCE(s.created_at, CURRENT_TIMESTAMP)
+            FROM stock s
+            WHERE NOT EXISTS (SELECT 1 FROM stock_movements m WHERE m.stock_id = s.id)
+            """;
+    private static final String WINDOW_SQL =
+            "SELECT id, stock_id, delta FROM stock_movements WHERE id > ? AND id <= ? ORDER BY id";
+
+    public record MovementKey(long stockId, String reason, String username) {}
+
+    private final StockMovementRepository movementRepository;
+    private final StockSnapshotRepository snapshotRepository;
+    private final StockLedgerGapRepository gapRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration snapshotLag;
+    private final Duration gapRetention;
+
+    public StockLedgerService(StockMovementRepository movementRepository,
+                              StockSnapshotRepository snapshotRepository,
+                              StockLedgerGapRepository gapRepository,
+                              JdbcTemplate jdbcTemplate,
+                              @Value("${stock.ledger.snapshot-lag-ms}") long snapshotLagMs,
+                              @Value("${stock.ledger.gap-retention-ms}") long gapRetentionMs) {
+        this.movementRepository = movementRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.gapRepository = gapRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotLag = Duration.ofMillis(snapshotLagMs);
+        this.gapRetention = Duration.ofMillis(gapRetentionMs);
+    }
+
+    // Stock rows created before the ledger existed get their current quantity as the first movement
+    @EventListener(ApplicationReadyEvent.class)
+    public void recordOpeningBalances() {
+        jdbcTemplate.update(OPENING_BALANCE_SQL);
+    }
+
+    public void record(long stockId, long delta, String reason) {
+        if (delta == 0) return;
+        movementRepository.save(StockMovement.builder()
+                .stockId(stockId)
+                .delta(delta)
+                .reason(reason)
+                .username(currentUsername())
+                .build());
+    }
+
+    // Used by batched writers that bypass the persistence context; deltas are already summed per key
+    public void recordAll(Map<MovementKey, Long> deltas) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            if (delta != 0) batch.add(new Object[]{key.stockId(), delta, key.reason(), key.username(), now});
+        });
+        if (!batch.isEmpty()) jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, batch);
+    }
+
+    // Movements that committed inside a gap after the snapshot was taken are not part of it yet
+    public long quantityAt(long stockId, LocalDateTime at) {
+        return snapshotRepository.findFirstByStockIdAndTakenAtLessThanEqualOrderByIdDesc(stockId, at)
+                .map(snapshot -> snapshot.getQuantity()
+                        + movementRepository.sumDeltasInGaps(stockId, snapshot.getLastMovementId(), at)
+                        + movementRepository.sumDeltasAfter(stockId, snapshot.getLastMovementId(), at))
+                .orElseGet(() -> movementRepository.sumDeltasAfter(stockId, 0L, at));
+    }
+
+    public List<StockMovement> movements(long stockId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) throw new BadRequestException("from must be before to");
+        return movementRepository.findByStockIdBetween(stockId, from, to, PageRequest.ofSize(MAX_MOVEMENTS));
+    }
+
+    /*
+     * Folds the movements recorded since the previous round into one snapshot per touched stock.
+     * Only movements older than the configured lag are folded. Identity ids are taken at insert time, so a
+     * transaction still in flight at the cutoff leaves a hole below ids that did commit; holes are recorded as
+     * gaps and rows that show up inside them later are folded in a following round. Gaps that stay empty past
+     * the retention belonged to rolled back transactions and are dropped.
+     */
+    @Scheduled(fixedDelayString = "${stock.ledger.snapshot-interval-ms}",
+            initialDelayString = "${stock.ledger.snapshot-interval-ms}")
+    @Transactional
+    public void takeSnapshots() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(snapshotLag);
+        long fromId = snapshotRepository.findLastSnapshotMovementId();
+        long toId = Math.max(fromId, movementRepository.findMaxIdCreatedUpTo(cutoff));
+
+        Map<Long, Long> sums = new HashMap<>();
+        foldLateMovements(sums);
+        if (toId > fromId) foldWindow(fromId, toId, now, sums);
+        gapRepository.deleteDetectedBefore(now.minus(gapRetention));
+        if (sums.isEmpty()) return;
+
+        Map<Long, Long> previous = snapshotRepository.findLatestByStockIds(sums.keySet()).stream()
+                .collect(Collectors.toMap(StockSnapshot::getStockId, StockSnapshot::getQuantity));
+        List<StockSnapshot> snapshots = sums.entrySet().stream()
+                .map(entry -> StockSnapshot.builder()
+                        .stockId(entry.getKey())
+                        .quantity(previous.getOrDefault(entry.getKey(), 0L) + entry.getValue())
+                        .lastMovementId(toId)
+                        .takenAt(cutoff)
+                        .build())
+                .toList();
+        snapshotRepository.saveAll(snapshots);
+    }
+
+    // Sums and gap detection come from the same scan so a row committing in between cannot be counted twice
+    private void foldWindow(long fromId, long toId, LocalDateTime now, Map<Long, Long> sums) {
+        List<StockLedgerGap> gaps = new ArrayList<>();
+        long[] expected = {fromId + 1};
+        jdbcTemplate.query(WINDOW_SQL, (ResultSet row) -> {
+            long id = row.getLong(1);
+            if (id > expected[0]) gaps.add(gap(expected[0], id - 1, now));
+            expected[0] = id + 1;
+            sums.merge(row.getLong(2), row.getLong(3), Long::sum);
+        }, fromId, toId);
+        gapRepository.saveAll(gaps);
+    }
+
+    private void foldLateMovements(Map<Long, Long> sums) {
+        List<Object[]> late = movementRepository.findInGaps();
+        if (late.isEmpty()) return;
+
+        Map<Long, List<Long>> foundByGap = new HashMap<>();
+        for (Object[] row : late) {
+            foundByGap.computeIfAbsent((Long) row[1], gapId -> new ArrayList<>()).add((Long) row[0]);
+            sums.merge((Long) row[2], ((Number) row[3]).longValue(), Long::sum);
+        }
+        // Split each gap around the ids found in it; the rest may still be in flight
+        List<StockLedgerGap> gaps = gapRepository.findAllById(foundByGap.keySet());
+        List<StockLedgerGap> remaining = new ArrayList<>();
+        for (StockLedgerGap gap : gaps) {
+            long start = gap.getFromId();
+            for (long id : foundByGap.get(gap.getId())) {
+                if (id > start) remaining.add(gap(start, id - 1, gap.getDetectedAt()));
+                start = id + 1;
+            }
+            if (start <= gap.getToId()) remaining.add(gap(start, gap.getToId(), gap.getDetectedAt()));
+        }
+        gapRepository.deleteAll(gaps);
+        gapRepository.saveAll(remaining);
+    }
+
+    private static StockLedgerGap gap(long fromId, long toId, LocalDateTime detectedAt) {
+        return StockLedgerGap.builder().fromId(fromId).toId(toId).detectedAt(detectedAt).build();
+    }
+
+    static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) return null;
+        return authentication.getName();
+    }
+}
@@ -1,24 +1,77 @@
 package barbosa.guilherme.backend.service;
 
+import barbosa.guilherme.backend.event.ChangeType;
+import barbosa.guilherme.backend.event.EntityChangedEvent;
+import barbosa.guilherme.backend.event.EntityType;
 import barbosa.guilherme.backend.exception.BadRequestException;
+import barbosa.guilherme.backend.model.Product;
 import barbosa.guilherme.backend.model.Stock;
+import barbosa.guilherme.backend.model.StockMovement;
+import barbosa.guilherme.backend.repository.FieldsetRepository;
+import barbosa.guilherme.backend.repository.ProductRepository;
 import barbosa.guilherme.backend.repository.StockRepository;
+import barbosa.guilherme.backend.requests.StockAdjustRequestBody;
 import barbosa.guilherme.backend.requests.StockPostRequestBody;
 import barbosa.guilherme.backend.requests.StockPutRequestBody;
+import barbosa.guilherme.backend.util.BatchLookups;
+import barbosa.guilherme.backend.responses.BatchLookupResponse;
+import barbosa.guilherme.backend.responses.StockQuantityResponse;
+import barbosa.guilherme.backend.responses.StockResponse;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class StockService {
     private final StockRepository repository;
+    private final ProductRepository productRepository;
+    private final StockLedgerService ledgerService;
+    private final Optional<StockCounterEngine> counterEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FieldsetRepository fieldsetRepository;
+    private final OptimisticRetryExecutor retryExecutor;
 
-    public StockService(StockRepository repository) {
+    public StockService(StockRepository repository, ProductRepository productRepository, StockLedgerService ledgerService,
+                        Optional<StockCounterEngine> counterEngine, ApplicationEventPublisher eventPublisher,
+                        FieldsetRepository fieldsetRepository, OptimisticRetryExecutor retryExecutor) {
+        this.retryExecutor = retryExecutor;
         this.repository = repository;
+        this.productRepository = productRepository;
+        this.fieldsetRepository = fieldsetRepository;
+        this.ledgerService = ledgerService;
+        this.counterEngine = counterEngine;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<Stock> findAll() {return repository.findAll();}
+    public List<StockResponse> findAll() {
+        List<StockResponse> stock = repository.findAllResponses();
+        return counterEngine.map(engine -> stock.stream().map(engine::overlay).toList()).orElse(stock);
+    }
+
+    public List<Map<String, Object>> findAll(String fields) {
+        List<Map<String, Object>> stock = fieldsetRepository.findAll(EntityType.STOCK, fields);
+        // The in-memory counter can only be matched to rows that selected their id
+        counterEngine.ifPresent(engine -> stock.forEach(row -> {
+            if (row.get("id") instanceof Long id && row.containsKey("quantity")) {
+                engine.currentQuantity(id).ifPresent(quantity -> row.put("quantity", (int) quantity));
+            }
+        }));
+        return stock;
+    }
+
+    public BatchLookupResponse<StockResponse> findResponsesByIds(List<Long> ids) {
+        List<Long> distinctIds = BatchLookups.distinctIds(ids);
+        List<StockResponse> stock = repository.findResponsesByIdIn(distinctIds);
+        List<StockResponse> current = counterEngine.map(engine -> stock.stream().map(engine::overlay).toList()).orElse(stock);
+        return BatchLookupResponse.of(distinctIds, current, StockResponse::id);
+    }
 
     public Stock findByIdOrThrowBadRequestException(long id){
         return repository.findById(id)
@@ -28,27 +81,90 @@ public class StockService {
     @Transactional
     public Stock save(StockPostRequestBody stockPostRequestBody){
         Stock newStock = new Stock();
-        newStock.setProduct(stockPostRequestBody.getProduct());
+        newStock.setProduct(productOf(stockPostRequestBody.getProduct()));
         newStock.setQuantity(stockPostRequestBody.getQuantity());
-        return repository.save(newStock);
+        Stock savedStock = repository.save(newStock);
+        ledgerService.record(savedStock.getId(), savedStock.getQuantity(), "CREATED");
+        publish(savedStock.getId(), ChangeType.CREATED);
+        return savedStock;
     }
 
+    // Missing rows are rejected like in the other services, so no tombstone is logged for a row that never existed
+    @Transactional
     public void deleteById(long id){
+        int quantity = repository.findQuantityById(id)
+                .orElseThrow(() -> new BadRequestException("Stock not found"));
+        counterEngine.ifPresent(engine -> engine.discardAfterCommit(id));
+        ledgerService.record(id, -quantity, "DELETED");
         repository.deleteById(id);
+        publish(id, ChangeType.DELETED);
     }
 
-    @Transactional
-    public void update(StockPutRequestBody stockPutRequestBody){
-        Stock stockToUpdate = findByIdOrThrowBadRequestException(stockPutRequestBody.getId());
+    public void update(StockPutRequestBody stockPutRequestBody, Long expectedVersion){
+        retryExecutor.run(EntityType.STOCK, expectedVersion, () -> {
+            Stock stockToUpdate = findByIdOrThrowBadRequestException(stockPutRequestBody.getId());
+            retryExecutor.checkVersion(EntityType.STOCK, expectedVersion, stockToUpdate.getVersion());
+
+            if(stockPutRequestBody.getQuantity() != null && stockPutRequestBody.getQuantity() >= 0) {
+                if (counterEngine.isPresent()) {
+                    // The row may lag the counter; the engine turns the new value into a delta after commit
+                    counterEngine.get().setAfterCommit(stockToUpdate.getId(), stockPutRequestBody.getQuantity());
+                } else {
+                    ledgerService.record(stockToUpdate.getId(),
+                            stockPutRequestBody.getQuantity() - stockToUpdate.getQuantity(), "SET");
+                    stockToUpdate.setQuantity(stockPutRequestBody.getQuantity());
+                }
+            }
+            if(stockPutRequestBody.getProduct() != null) {
+                stockToUpdate.setProduct(productOf(stockPutRequestBody.getProduct()));
+            }
+            repository.save(stockToUpdate);
+            publish(stockToUpdate.getId(), ChangeType.UPDATED);
+        });
+    }
 
-        if(stockPutRequestBody.getQuantity() != null && stockPutRequestBody.getQuantity() >= 0) {
-            stockToUpdate.setQuantity(stockPutRequestBody.getQuantity());
+    @Transactional
+    public StockQuantityResponse adjust(long id, StockAdjustRequestBody stockAdjustRequestBody) {
+        int amount = stockAdjustRequestBody.getAmount();
+        if (counterEngine.isPresent()) {
+            int quantity = (int) counterEngine.get().adjust(id, amount, reasonOf(stockAdjustRequestBody));
+            eventPublisher.publishEvent(new EntityChangedEvent(EntityType.STOCK, id, ChangeType.UPDATED, true));
+            return new StockQuantityResponse(id, quantity);
         }
-        if(stockPutRequestBody.getProduct() != null) {
-            stockToUpdate.setProduct(stockPutRequestBody.getProduct());
+        if (repository.adjustQuantity(id, amount, LocalDateTime.now()) == 0) {
+            if (!repository.existsById(id)) throw new BadRequestException("Stock not found");
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient stock");
         }
-        repository.save(stockToUpdate);
+        ledgerService.record(id, amount, reasonOf(stockAdjustRequestBody));
+        // Same transaction still holds the row lock, so this reads our own increment
+        int quantity = repository.findQuantityById(id)
+                .orElseThrow(() -> new BadRequestException("Stock not found"));
+        publish(id, ChangeType.UPDATED);
+        return new StockQuantityResponse(id, quantity);
+    }
+
+    public StockQuantityResponse quantityAt(long id, LocalDateTime at) {
+        if (!repository.existsById(id)) throw new BadRequestException("Stock not found");
+        return new StockQuantityResponse(id, (int) ledgerService.quantityAt(id, at));
+    }
+
+    public List<StockMovement> movements(long id, LocalDateTime from, LocalDateTime to) {
+        return ledgerService.movements(id, from, to);
     }
 
+    // Clients send only the product id; a detached product carries no version, which Hibernate refuses to merge
+    private Product productOf(Product requested) {
+        if (requested.getId() == null) throw new BadRequestException("Product not found");
+        return productRepository.findById(requested.getId())
+                .orElseThrow(() -> new BadRequestException("Product not found"));
+    }
 
+    private void publish(long id, ChangeType change) {
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityType.STOCK, id, change));
+    }
+
+    private static String reasonOf(StockAdjustRequestBody stockAdjustRequestBody) {
+        String reason = stockAdjustRequestBody.getReason();
+        return reason == null || reason.isBlank() ? "ADJUST" : reason.trim();
+    }
 }
@@ -0,0 +1,153 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.event.EntitiesImportedEvent;
+import barbosa.guilherme.backend.event.EntityChangedEvent;
+import barbosa.guilherme.backend.event.EntityType;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * One change counter per table, used to build strong ETags. Counters live in table_version_stripes, so every node
+ * answers with the same ETag for the same data and a restart never reuses one. A table's counter is the sum of
+ * its stripes: a transaction bumps one random stripe of each table it touched just before it commits, so
+ * concurrent writers seldom wait on the same row lock, and tables are bumped in a fixed order so they cannot
+ * deadlock. ETags are built from an in-memory copy of the sums, refreshed after every local commit and on a
+ * schedule to pick up other nodes' writes; a GET never reads the table.
+ */
+@Component
+public class TableVersionRegistry {
+    static final int STRIPES = 16;
+
+    private static final String SELECT_SQL =
+            "SELECT entity_type, SUM(version) FROM table_version_stripes GROUP BY entity_type";
+    private static final String SELECT_STRIPES_SQL = "SELECT entity_type, stripe FROM table_version_stripes";
+    private static final String INSERT_SQL =
+            "INSERT INTO table_version_stripes (entity_type, stripe, version) VALUES (?, ?, ?)";
+    private static final String BUMP_SQL =
+            "UPDATE table_version_stripes SET version = version + 1 WHERE entity_type = ? AND stripe = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Sums only grow, so concurrent refreshes keep the larger value and never step an ETag back
+    private final Map<EntityType, AtomicLong> versions = new EnumMap<>(EntityType.class);
+    // Deferred counter adjustments live only in this node's memory until they are flushed, and so does their version
+    private final Map<EntityType, AtomicLong> deferredVersions = new EnumMap<>(EntityType.class);
+
+    public TableVersionRegistry(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (EntityType type : EntityType.values()) {
+            versions.put(type, new AtomicLong());
+            deferredVersions.put(type, new AtomicLong());
+        }
+    }
+
+    // Counters start at the creation time so a recreated schema does not hand out ETags seen before
+    @EventListener(ApplicationReadyEvent.class)
+    public void createCounters() {
+        Set<String> existing = new HashSet<>();
+        jdbcTemplate.query(SELECT_STRIPES_SQL, row -> {
+            existing.add(row.getString(1) + ":" + row.getInt(2));
+        });
+        long start = System.currentTimeMillis();
+        for (EntityType type : EntityType.values()) {
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                if (existing.contains(type.name() + ":" + stripe)) continue;
+                try {
+                    jdbcTemplate.update(INSERT_SQL, type.name(), stripe, stripe == 0 ? start : 0L);
+                } catch (DuplicateKeyException e) {
+                    // Another node created it first
+                }
+            }
+        }
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${table-versions.refresh-interval-ms}",
+            initialDelayString = "${table-versions.refresh-interval-ms}")
+    public void refresh() {
+        jdbcTemplate.query(SELECT_SQL, row -> {
+            versions.get(EntityType.valueOf(row.getString(1))).accumulateAndGet(row.getLong(2), Math::max);
+        });
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.deferred()) deferredVersions.get(event.type()).incrementAndGet();
+        else bump(event.type());
+    }
+
+    @EventListener
+    public void onEntitiesImported(EntitiesImportedEvent event) {
+        bump(event.type());
+    }
+
+    // For writers that bypass the events; bumps the table when the current transaction commits
+    public void touch(EntityType type) {
+        bump(type);
+    }
+
+    // Read before querying rows, so a concurrent commit can only make the ETag older than the body, never newer
+    public String etag(EntityType... types) {
+        StringBuilder etag = new StringBuilder("\"");
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) etag.append('-');
+            etag.append(Character.toLowerCase(types[i].name().charAt(0)))
+                    .append(Long.toString(versions.get(types[i]).get(), 36));
+            long deferred = deferredVersions.get(types[i]).get();
+            if (deferred > 0) etag.append('.').append(Long.toString(deferred, 36));
+        }
+        return etag.append('"').toString();
+    }
+
+    private void bump(EntityType type) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bumpStripe(type);
+            refresh();
+            return;
+        }
+        PendingBumps pending = (PendingBumps) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingBumps();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.types.add(type);
+    }
+
+    private void bumpStripe(EntityType type) {
+        jdbcTemplate.update(BUMP_SQL, type.name(), ThreadLocalRandom.current().nextInt(STRIPES));
+    }
+
+    private final class PendingBumps implements TransactionSynchronization {
+        private final Set<EntityType> types = EnumSet.noneOf(EntityType.class);
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            for (EntityType type : types) bumpStripe(type);
+        }
+
+        // Before the response goes out, so the caller's next request already sees the new ETag
+        @Override
+        public void afterCommit() {
+            refresh();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TableVersionRegistry.this);
+        }
+    }
+}
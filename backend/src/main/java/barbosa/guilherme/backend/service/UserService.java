@@ -1,41 +1,65 @@
 package barbosa.guilherme.backend.service;
 
+import barbosa.guilherme.backend.event.EntityType;
 import barbosa.guilherme.backend.exception.BadRequestException;
 import barbosa.guilherme.backend.model.Role;
 import barbosa.guilherme.backend.model.User;
+import barbosa.guilherme.backend.repository.FieldsetRepository;
 import barbosa.guilherme.backend.repository.UserRepository;
 import barbosa.guilherme.backend.requests.UserLoginRequestBody;
 import barbosa.guilherme.backend.requests.UserPostRequestBody;
 import barbosa.guilherme.backend.requests.UserPutRequestBody;
 import barbosa.guilherme.backend.responses.TokenResponse;
 import barbosa.guilherme.backend.util.JwtUtil;
-import jakarta.transaction.Transactional;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Pattern;
 
 @Service
 public class UserService {
+    // Compiled once instead of on every registration
+    private static final Pattern STRONG_PASSWORD = Pattern.compile("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d).{8,}$");
+
     private final UserRepository repository;
-    private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
-
-    public UserService(UserRepository repository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    private final PasswordHashingExecutor hashingExecutor;
+    private final FieldsetRepository fieldsetRepository;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final TransactionTemplate transactionTemplate;
+    // Registrations are saved here, so the hashing pool never waits on the database
+    private final ExecutorService persistExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public UserService(UserRepository repository, JwtUtil jwtUtil,
+                       PasswordHashingExecutor hashingExecutor, FieldsetRepository fieldsetRepository,
+                       OptimisticRetryExecutor retryExecutor, PlatformTransactionManager transactionManager) {
+        this.retryExecutor = retryExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
         this.repository = repository;
-        this.passwordEncoder = passwordEncoder;
+        this.fieldsetRepository = fieldsetRepository;
         this.jwtUtil = jwtUtil;
+        this.hashingExecutor = hashingExecutor;
     }
 
     public List<User> listAll(){
         return repository.findAll();
     }
 
+    public List<Map<String, Object>> listAll(String fields) {
+        return fieldsetRepository.findAll(EntityType.USER, fields);
+    }
+
     public User findByIdOrThrowBadRequestException(long id) {
         return repository.findById(id)
                 .orElseThrow(() -> new BadRequestException("User not found"));
@@ -50,27 +74,32 @@ public class UserService {
         repository.delete(findByIdOrThrowBadRequestException(id));
     }
 
-    @Transactional
-    public void update(UserPutRequestBody userPutRequestBody) {
-        User savedUser = findByIdOrThrowBadRequestException(userPutRequestBody.getId());
-
-        if (userPutRequestBody.getName() != null && !userPutRequestBody.getName().isBlank()) {
-            savedUser.setName(userPutRequestBody.getName());
-        }
-
-        if (userPutRequestBody.getEmail() != null && !userPutRequestBody.getEmail().isBlank()) {
-            savedUser.setEmail(userPutRequestBody.getEmail());
-        }
-
-        if (userPutRequestBody.getPassword() != null && !userPutRequestBody.getPassword().isBlank()) {
-            savedUser.setPassword(passwordEncoder.encode(userPutRequestBody.getPassword()));
-        }
-
-        repository.save(savedUser);
+    public void update(UserPutRequestBody userPutRequestBody, Long expectedVersion) {
+        // Hashed once on the hashing pool, outside the transaction, so a retried attempt does not pay BCrypt again
+        String encodedPassword = userPutRequestBody.getPassword() != null && !userPutRequestBody.getPassword().isBlank()
+                ? hashingExecutor.encode(userPutRequestBody.getPassword()).join()
+                : null;
+        retryExecutor.run(EntityType.USER, expectedVersion, () -> {
+            User savedUser = findByIdOrThrowBadRequestException(userPutRequestBody.getId());
+            retryExecutor.checkVersion(EntityType.USER, expectedVersion, savedUser.getVersion());
+
+            if (userPutRequestBody.getName() != null && !userPutRequestBody.getName().isBlank()) {
+                savedUser.setName(userPutRequestBody.getName());
+            }
+
+            if (userPutRequestBody.getEmail() != null && !userPutRequestBody.getEmail().isBlank()) {
+                savedUser.setEmail(userPutRequestBody.getEmail());
+            }
+
+            if (encodedPassword != null) {
+                savedUser.setPassword(encodedPassword);
+            }
+
+            repository.save(savedUser);
+        });
     }
 
-    @Transactional
-    public TokenResponse register(UserPostRequestBody userPostRequestBody) {
+    public CompletableFuture<TokenResponse> register(UserPostRequestBody userPostRequestBody) {
         User user = new User();
         user.setName(userPostRequestBody.getName());
         user.setEmail(userPostRequestBody.getEmail());
@@ -96,35 +125,57 @@ public class UserService {
         }
 
         // Validate password strength
-        Pattern passwordPattern = Pattern.compile("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d).{8,}$");
-        if (!passwordPattern.matcher(user.getPassword()).matches()) {
+        if (!isStrongPassword(user.getPassword())) {
             throw new BadRequestException("Password must be at least 8 characters long and contain at least one uppercase letter, one lowercase letter, and one digit");
         }
 
-        // Encode password and save user
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        repository.save(user);
+        // Encode password off the request thread, then save user in its own transaction
+        return hashingExecutor.encode(user.getPassword()).thenApplyAsync(encodedPassword -> {
+            user.setPassword(encodedPassword);
+            transactionTemplate.executeWithoutResult(status -> {
+                // The email may have been taken while the password was being hashed
+                if (repository.findByEmail(user.getEmail()).isPresent()) {
+                    throw new BadRequestException("Email already used");
+                }
+                repository.save(user);
+            });
+
+            // Generate and return token directly
+            String token = jwtUtil.generateToken(user.getEmail(), roleNames(user));
+            return new TokenResponse(token);
+        }, persistExecutor);
+    }
 
-        // Generate and return token directly
-        String token = jwtUtil.generateToken(user.getEmail());
-        return new TokenResponse(token);
+    @PreDestroy
+    public void shutdown() {
+        persistExecutor.shutdown();
     }
 
 
 
-    public TokenResponse login(UserLoginRequestBody userLoginRequestBody) {
+    public CompletableFuture<TokenResponse> login(UserLoginRequestBody userLoginRequestBody) {
         Optional<User> searchedUser = repository.findByEmail(userLoginRequestBody.getEmail());
 
-        if (searchedUser.isEmpty() ||
-                !passwordEncoder.matches(userLoginRequestBody.getPassword(), searchedUser.get().getPassword())) {
+        if (searchedUser.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials");
         }
 
         User user = searchedUser.get();
-        String token = jwtUtil.generateToken(user.getEmail());
+        return hashingExecutor.matches(userLoginRequestBody.getPassword(), user.getPassword()).thenApply(matches -> {
+            if (!matches) {
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials");
+            }
+            String token = jwtUtil.generateToken(user.getEmail(), roleNames(user));
+            return new TokenResponse(token);
+        });
+    }
 
-        return new TokenResponse(token);
+    public static boolean isStrongPassword(String password) {
+        return STRONG_PASSWORD.matcher(password).matches();
+    }
 
+    private static List<String> roleNames(User user) {
+        return user.getRoles() == null ? List.of() : user.getRoles().stream().map(Role::getName).toList();
     }
 
 }
\ No newline at end of file
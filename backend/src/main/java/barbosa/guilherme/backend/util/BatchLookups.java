@@ -0,0 +1,23 @@
+package barbosa.guilherme.backend.util;
+
+import barbosa.guilherme.backend.exception.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+public final class BatchLookups {
+    // Keeps the IN list and the query string of a single lookup at a reasonable size
+    public static final int MAX_IDS = 500;
+
+    private BatchLookups() {}
+
+    // Drops duplicates while keeping the order the client asked for
+    public static List<Long> distinctIds(List<Long> ids) {
+        LinkedHashSet<Long> distinct = ids == null ? new LinkedHashSet<>() : new LinkedHashSet<>(ids);
+        distinct.remove(null);
+        if (distinct.isEmpty()) throw new BadRequestException("ids must contain at least one id");
+        if (distinct.size() > MAX_IDS) throw new BadRequestException("At most " + MAX_IDS + " ids per lookup");
+        return new ArrayList<>(distinct);
+    }
+}
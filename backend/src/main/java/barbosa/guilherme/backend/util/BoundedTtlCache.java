@@ -0,0 +1,150 @@
+package barbosa.guilherme.backend.util;
+
+import barbosa.guilherme.backend.responses.CacheStats;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/*
+ * Small read-through LRU cache with a per-entry time to live.
+ * Loads run outside the lock; a load that started before an invalidation is not stored, so a reader racing
+ * a committed write cannot put the old value back.
+ */
+public class BoundedTtlCache<K, V> {
+    private final int maxSize;
+    private final long ttlMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedTtlCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    // Returns null without caching anything when the loader finds nothing
+    public V get(K key, Function<K, V> loader) {
+        long loadGeneration;
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAtMillis() > System.currentTimeMillis()) {
+                    hits.increment();
+                    return entry.value();
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        misses.increment();
+        V value = loader.apply(key);
+        if (value == null) return null;
+
+        lock.lock();
+        try {
+            if (generation == loadGeneration) {
+                entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+                evictOverflow();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return value;
+    }
+
+    // Cached keys are served as is and the rest are loaded with one loader call; keys it does not return are left out
+    public Map<K, V> getAll(Collection<K> keys, Function<Collection<K>, Map<K, V>> loader) {
+        Map<K, V> found = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        long loadGeneration;
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            for (K key : keys) {
+                Entry<V> entry = entries.get(key);
+                if (entry != null && entry.expiresAtMillis() > now) {
+                    found.put(key, entry.value());
+                    continue;
+                }
+                if (entry != null) {
+                    entries.remove(key);
+                    evictions.increment();
+                }
+                missing.add(key);
+            }
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        hits.add(found.size());
+        misses.add(missing.size());
+        if (missing.isEmpty()) return found;
+        Map<K, V> loaded = loader.apply(missing);
+        found.putAll(loaded);
+
+        lock.lock();
+        try {
+            if (generation == loadGeneration) {
+                long expiresAtMillis = System.currentTimeMillis() + ttlMillis;
+                loaded.forEach((key, value) -> entries.put(key, new Entry<>(value, expiresAtMillis)));
+                evictOverflow();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return found;
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generation++;
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        int size;
+        lock.lock();
+        try {
+            size = entries.size();
+        } finally {
+            lock.unlock();
+        }
+        return new CacheStats(hitCount, missCount, evictions.sum(), size, total == 0 ? 0 : (double) hitCount / total);
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAtMillis) {}
+}
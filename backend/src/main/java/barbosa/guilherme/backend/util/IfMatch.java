@@ -0,0 +1,24 @@
+package barbosa.guilherme.backend.util;
+
+import barbosa.guilherme.backend.exception.BadRequestException;
+
+// PUT requests pin the row version they were based on with If-Match: "<version>", the "version" field of the body
+public final class IfMatch {
+
+    private IfMatch() {}
+
+    // Returns null when the client did not ask for a conditional update
+    public static Long expectedVersion(String header) {
+        if (header == null || header.isBlank() || header.trim().equals("*")) return null;
+        String value = header.trim();
+        if (value.startsWith("W/")) value = value.substring(2);
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("If-Match must carry a single entity version");
+        }
+    }
+}
@@ -1,20 +1,37 @@
 package barbosa.guilherme.backend.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
+    private static final long SWEEP_INTERVAL_MS = 1000;
+    private static final String ROLES_CLAIM = "roles";
 
     @Value("${jwt.secret}")
     private String secret;
@@ -22,8 +39,50 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private int jwtExpirationInMs;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.cache.max-size}")
+    private int cacheMaxSize;
+
+    private Key signingKey;
+    private JwtParser parser;
+
+    // SHA-256 of the raw token -> already verified claims, so raw bearer tokens are never kept in memory
+    private final ConcurrentHashMap<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
+    // Verifies signature and expiry once per distinct token; repeat calls are served from the cache until expiry
+    public Optional<VerifiedToken> verify(String token) {
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                cacheHits.increment();
+                return Optional.of(cached);
+            }
+            verifiedTokens.remove(digest, cached);
+        }
+        cacheMisses.increment();
+
+        Claims claims;
+        try {
+            claims = extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (claims.getSubject() == null || claims.getExpiration() == null) return Optional.empty();
+
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), authoritiesOf(claims),
+                claims.getExpiration().getTime());
+        cache(digest, verified, now);
+        return Optional.of(verified);
     }
 
     public String extractUsername(String token) {
@@ -40,26 +99,68 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token).getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public String generateToken(String username) {
+        return generateToken(username, List.of());
     }
 
-    public String generateToken(String username) {
+    // Roles travel signed inside the token so requests are authorized without loading the user
+    public String generateToken(String username, Collection<String> roles) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLES_CLAIM, List.copyOf(roles));
         return createToken(claims, username);
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder().setClaims(claims).setSubject(subject).setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationInMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256).compact();
+                .signWith(signingKey, SignatureAlgorithm.HS256).compact();
     }
 
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return verify(token).map(verified -> verified.username().equals(username)).orElse(false);
+    }
+
+    public long cacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long cacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    public int cacheSize() {
+        return verifiedTokens.size();
+    }
+
+    private static List<GrantedAuthority> authoritiesOf(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(roles instanceof Collection<?> names)) return List.of();
+        return names.stream()
+                .map(name -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_" + name))
+                .toList();
+    }
+
+    private void cache(String digest, VerifiedToken verified, long now) {
+        if (verifiedTokens.size() >= cacheMaxSize) {
+            long previous = lastSweep.get();
+            if (now - previous >= SWEEP_INTERVAL_MS && lastSweep.compareAndSet(previous, now)) {
+                verifiedTokens.values().removeIf(token -> token.expiresAtMillis() <= now);
+            }
+            // Still full of live tokens: skip caching rather than evicting an active session
+            if (verifiedTokens.size() >= cacheMaxSize) return;
+        }
+        verifiedTokens.put(digest, verified);
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
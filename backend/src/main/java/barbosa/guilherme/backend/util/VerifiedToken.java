@@ -0,0 +1,7 @@
+package barbosa.guilherme.backend.util;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+public record VerifiedToken(String username, List<GrantedAuthority> authorities, long expiresAtMillis) {}
@@ -0,0 +1,406 @@
+package barbosa.guilherme.backend.benchmark;
+
+import barbosa.guilherme.backend.BackendApplication;
+import barbosa.guilherme.backend.event.EntitiesImportedEvent;
+import barbosa.guilherme.backend.event.EntityType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Replays the request mix produced by frontend/src/services/api.jsx (login, catalog and stock listings, dashboard,
+ * lookups and CRUD) against the application booted on an in-memory database, and reports throughput plus latency
+ * percentiles per endpoint. Run with:
+ *
+ *   mvn -Pload-test test-compile exec:java
+ *
+ * Tunables (system properties): loadtest.users (50 concurrent sessions), loadtest.duration (60 s), loadtest.warmup
+ * (10 s), loadtest.categories (50), loadtest.products (10000, one stock row each), loadtest.profiles (e.g. virtual).
+ * Raise loadtest.products to find where the unpaged list endpoints stop keeping up. As with ThreadModeComparison,
+ * loadtest.datasource.url (plus username/password) points the run at a real MySQL instance instead of H2.
+ *
+ * Sessions run a closed loop, so latencies are those seen by clients that wait for each response; under overload
+ * throughput flattens instead of the percentiles exploding.
+ */
+public final class ApiLoadDriver {
+    private static final String H2_URL = "jdbc:h2:mem:load-test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER";
+    private static final String PASSWORD = "LoadTest123";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Map<String, Endpoint> ENDPOINTS = new LinkedHashMap<>();
+    private static final List<Operation> MIX = new ArrayList<>();
+    private static int totalWeight;
+
+    static {
+        operation(2, "POST /users/login", ApiLoadDriver::login);
+        operation(15, "GET /categories", session -> session.get("/categories"));
+        operation(15, "GET /products", session -> session.get("/products"));
+        operation(10, "GET /products?fields", session -> session.get("/products?fields=id,name,price"));
+        operation(15, "GET /stock", session -> session.get("/stock"));
+        operation(10, "GET /dashboard", session -> session.get("/dashboard"));
+        operation(5, "GET /products/page", session -> session.get("/products/page?size=20"));
+        operation(6, "GET /products/find/{id}", session -> session.get("/products/find/" + session.seededProduct()));
+        operation(3, "GET /products/find?ids", session -> session.get("/products/find?ids=" + session.seededProductIds(20)));
+        operation(3, "POST /products/add", ApiLoadDriver::createProduct);
+        operation(3, "PUT /products", ApiLoadDriver::updateProduct);
+        operation(2, "DELETE /products/delete/{id}", ApiLoadDriver::deleteProduct);
+        operation(3, "POST /stock/add", ApiLoadDriver::createStock);
+        operation(3, "PUT /stock", ApiLoadDriver::updateStock);
+        operation(2, "DELETE /stock/delete/{id}", ApiLoadDriver::deleteStock);
+        operation(1, "POST /categories/add", ApiLoadDriver::createCategory);
+        operation(1, "PUT /categories", ApiLoadDriver::updateCategory);
+        operation(1, "DELETE /categories/delete/{id}", ApiLoadDriver::deleteCategory);
+    }
+
+    private ApiLoadDriver() {}
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("loadtest.users", 50);
+        int duration = Integer.getInteger("loadtest.duration", 60);
+        int warmup = Integer.getInteger("loadtest.warmup", 10);
+        int categories = Integer.getInteger("loadtest.categories", 50);
+        int products = Integer.getInteger("loadtest.products", 10_000);
+
+        try (ConfigurableApplicationContext context = SpringApplication.run(BackendApplication.class, arguments())) {
+            System.out.printf("Seeding %d categories, %d products and %d stock rows%n", categories, products, products);
+            Catalog catalog = seed(context, categories, products);
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+
+            List<Session> sessions = new ArrayList<>(users);
+            for (int i = 0; i < users; i++) {
+                sessions.add(Session.register(client, "http://localhost:" + port, "loadtest" + i + "@example.com", catalog));
+            }
+
+            System.out.printf("Running %d sessions: %d s warmup, %d s measured%n", users, warmup, duration);
+            long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup);
+            long deadline = warmupEnd + TimeUnit.SECONDS.toNanos(duration);
+            try (ExecutorService runners = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (Session session : sessions) {
+                    runners.execute(() -> session.run(deadline));
+                }
+                TimeUnit.NANOSECONDS.sleep(warmupEnd - System.nanoTime());
+                ENDPOINTS.values().forEach(Endpoint::reset);
+            }
+            report(System.nanoTime() - warmupEnd);
+        }
+    }
+
+    // Runs every operation of the mix once in a single fresh session, so a test can catch the mix drifting from the API
+    static Map<String, Integer> runEachOperationOnce(ConfigurableApplicationContext context, int port)
+            throws IOException, InterruptedException {
+        Catalog catalog = seed(context, 3, 30);
+        Session session = Session.register(HttpClient.newHttpClient(), "http://localhost:" + port,
+                "loadtest-mix@example.com", catalog);
+        Map<String, Integer> statuses = new LinkedHashMap<>();
+        for (Operation operation : MIX) statuses.put(operation.endpoint.name, operation.action.execute(session));
+        return statuses;
+    }
+
+    private static String[] arguments() throws IOException {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--management.server.port=0",
+                "--spring.datasource.url=" + System.getProperty("loadtest.datasource.url", H2_URL),
+                "--spring.datasource.username=" + System.getProperty("loadtest.datasource.username", "sa"),
+                "--spring.datasource.password=" + System.getProperty("loadtest.datasource.password", ""),
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                // Keep the counter journal of a throwaway run out of the working copy
+                "--stock.counter.journal-dir=" + Files.createTempDirectory("load-test-journal")));
+        if (System.getProperty("loadtest.datasource.url") == null) {
+            arguments.add("--spring.datasource.driver-class-name=org.h2.Driver");
+            arguments.add("--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect");
+        }
+        String profiles = System.getProperty("loadtest.profiles");
+        if (profiles != null) arguments.add("--spring.profiles.active=" + profiles);
+        return arguments.toArray(String[]::new);
+    }
+
+    // Bulk JDBC inserts, then the same events the CSV import publishes so versions, snapshots and the search index catch up
+    private static Catalog seed(ConfigurableApplicationContext context, int categories, int products) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        LocalDateTime now = LocalDateTime.now();
+
+        // Roles come from DataInitializer, which has already run by the time the context is returned
+        List<Object[]> categoryRows = new ArrayList<>(categories);
+        for (int i = 0; i < categories; i++) {
+            categoryRows.add(new Object[]{"Category " + i, "category-" + i, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO categories (name, slug, version, created_at, updated_at) VALUES (?, ?, 0, ?, ?)",
+                categoryRows);
+        List<Long> categoryIds = jdbcTemplate.queryForList("SELECT id FROM categories ORDER BY id", Long.class);
+
+        List<Object[]> productRows = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            productRows.add(new Object[]{"Product " + i, "Load test product " + i, 1.0 + i % 500,
+                    categoryIds.get(i % categoryIds.size())});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (name, description, price, version, category_id) VALUES (?, ?, ?, 0, ?)",
+                productRows);
+        List<Long> productIds = jdbcTemplate.queryForList("SELECT id FROM products ORDER BY id", Long.class);
+
+        List<Object[]> stockRows = new ArrayList<>(products);
+        for (int i = 0; i < productIds.size(); i++) {
+            stockRows.add(new Object[]{productIds.get(i), i % 1000, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO stock (product_id, quantity, version, created_at, updated_at) VALUES (?, ?, 0, ?, ?)",
+                stockRows);
+        List<Long> stockIds = jdbcTemplate.queryForList("SELECT id FROM stock ORDER BY id", Long.class);
+
+        context.publishEvent(new EntitiesImportedEvent(EntityType.CATEGORY, categoryIds));
+        context.publishEvent(new EntitiesImportedEvent(EntityType.PRODUCT, productIds));
+        context.publishEvent(new EntitiesImportedEvent(EntityType.STOCK, stockIds));
+        return new Catalog(categoryIds, productIds);
+    }
+
+    private static void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long totalRequests = 0;
+        long totalErrors = 0;
+        System.out.printf("%n%-32s %9s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Endpoint endpoint : ENDPOINTS.values()) {
+            Histogram histogram = endpoint.recorder.getIntervalHistogram();
+            long errors = endpoint.errors.sum();
+            totalRequests += histogram.getTotalCount();
+            totalErrors += errors;
+            System.out.printf("%-32s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", endpoint.name,
+                    histogram.getTotalCount(), histogram.getTotalCount() / seconds, errors,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+        System.out.printf("%-32s %9d %9.1f %7d%n", "total", totalRequests, totalRequests / seconds, totalErrors);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static void operation(int weight, String name, Action action) {
+        Endpoint endpoint = new Endpoint(name);
+        ENDPOINTS.put(name, endpoint);
+        MIX.add(new Operation(weight, endpoint, action));
+        totalWeight += weight;
+    }
+
+    private static Operation pick() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : MIX) {
+            roll -= operation.weight;
+            if (roll < 0) return operation;
+        }
+        throw new IllegalStateException();
+    }
+
+    private static int login(Session session) throws IOException, InterruptedException {
+        HttpResponse<String> response = session.send("POST", "/users/login", Map.of("email", session.email, "password", PASSWORD));
+        if (response.statusCode() == 200) session.token = MAPPER.readTree(response.body()).get("token").asText();
+        return response.statusCode();
+    }
+
+    // Updates and deletes target rows the session created itself, so sessions never race each other for the same id
+    private static int createProduct(Session session) throws IOException, InterruptedException {
+        HttpResponse<String> response = session.send("POST", "/products/add", productBody(session, null));
+        if (response.statusCode() == 201) session.products.add(MAPPER.readTree(response.body()).get("id").asLong());
+        return response.statusCode();
+    }
+
+    private static int updateProduct(Session session) throws IOException, InterruptedException {
+        if (session.products.isEmpty()) return createProduct(session);
+        return session.send("PUT", "/products", productBody(session, session.any(session.products))).statusCode();
+    }
+
+    private static int deleteProduct(Session session) throws IOException, InterruptedException {
+        if (session.products.isEmpty()) return createProduct(session);
+        return session.send("DELETE", "/products/delete/" + session.takeLast(session.products), null).statusCode();
+    }
+
+    private static Map<String, Object> productBody(Session session, Long id) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        if (id != null) body.put("id", id);
+        body.put("name", "Load product " + ThreadLocalRandom.current().nextInt(1_000_000));
+        body.put("description", "Created by the load test");
+        body.put("price", ThreadLocalRandom.current().nextInt(1, 1000) + 0.99);
+        body.put("categoryId", session.any(session.catalog.categoryIds));
+        return body;
+    }
+
+    private static int createStock(Session session) throws IOException, InterruptedException {
+        HttpResponse<String> response = session.send("POST", "/stock/add", stockBody(session, null));
+        if (response.statusCode() == 201) session.stock.add(MAPPER.readTree(response.body()).get("id").asLong());
+        return response.statusCode();
+    }
+
+    private static int updateStock(Session session) throws IOException, InterruptedException {
+        if (session.stock.isEmpty()) return createStock(session);
+        return session.send("PUT", "/stock", stockBody(session, session.any(session.stock))).statusCode();
+    }
+
+    private static int deleteStock(Session session) throws IOException, InterruptedException {
+        if (session.stock.isEmpty()) return createStock(session);
+        return session.send("DELETE", "/stock/delete/" + session.takeLast(session.stock), null).statusCode();
+    }
+
+    private static Map<String, Object> stockBody(Session session, Long id) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        if (id != null) body.put("id", id);
+        body.put("product", Map.of("id", session.seededProduct()));
+        body.put("quantity", ThreadLocalRandom.current().nextInt(0, 500));
+        return body;
+    }
+
+    private static int createCategory(Session session) throws IOException, InterruptedException {
+        String name = "Load category " + ThreadLocalRandom.current().nextLong(Long.MAX_VALUE);
+        HttpResponse<String> response = session.send("POST", "/categories/add", Map.of("name", name));
+        if (response.statusCode() == 201) session.categories.add(MAPPER.readTree(response.body()).get("id").asLong());
+        return response.statusCode();
+    }
+
+    private static int updateCategory(Session session) throws IOException, InterruptedException {
+        if (session.categories.isEmpty()) return createCategory(session);
+        long suffix = ThreadLocalRandom.current().nextLong(Long.MAX_VALUE);
+        return session.send("PUT", "/categories", Map.of("id", session.any(session.categories),
+                "name", "Load category " + suffix, "slug", "load-category-" + suffix)).statusCode();
+    }
+
+    private static int deleteCategory(Session session) throws IOException, InterruptedException {
+        if (session.categories.isEmpty()) return createCategory(session);
+        return session.send("DELETE", "/categories/delete/" + session.takeLast(session.categories), null).statusCode();
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        int execute(Session session) throws IOException, InterruptedException;
+    }
+
+    private record Operation(int weight, Endpoint endpoint, Action action) {}
+
+    private record Catalog(List<Long> categoryIds, List<Long> productIds) {}
+
+    private static final class Endpoint {
+        private final String name;
+        private final Recorder recorder = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+
+        private Endpoint(String name) {
+            this.name = name;
+        }
+
+        private void reset() {
+            recorder.reset();
+            errors.reset();
+        }
+    }
+
+    private static final class Session {
+        private final HttpClient client;
+        private final String baseUrl;
+        private final String email;
+        private final Catalog catalog;
+        private final List<Long> products = new ArrayList<>();
+        private final List<Long> stock = new ArrayList<>();
+        private final List<Long> categories = new ArrayList<>();
+        private String token;
+
+        private Session(HttpClient client, String baseUrl, String email, Catalog catalog) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.email = email;
+            this.catalog = catalog;
+        }
+
+        private static Session register(HttpClient client, String baseUrl, String email, Catalog catalog)
+                throws IOException, InterruptedException {
+            Session session = new Session(client, baseUrl, email, catalog);
+            HttpResponse<String> response = session.send("POST", "/users/register",
+                    Map.of("name", "Load Test", "email", email, "password", PASSWORD));
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Could not register " + email + ": " + response.statusCode() + " " + response.body());
+            }
+            session.token = MAPPER.readTree(response.body()).get("token").asText();
+            return session;
+        }
+
+        private void run(long deadline) {
+            while (System.nanoTime() < deadline) {
+                Operation operation = pick();
+                long start = System.nanoTime();
+                boolean failed;
+                try {
+                    int status = operation.action.execute(this);
+                    failed = status >= 400;
+                } catch (IOException e) {
+                    failed = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                operation.endpoint.recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                if (failed) operation.endpoint.errors.increment();
+            }
+        }
+
+        private int get(String path) throws IOException, InterruptedException {
+            return client.send(request(path).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+
+        private HttpResponse<String> send(String method, String path, Object body) throws IOException, InterruptedException {
+            HttpRequest.BodyPublisher publisher = body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(body));
+            return client.send(request(path).method(method, publisher).build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        private HttpRequest.Builder request(String path) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json");
+            if (token != null) builder.header("Authorization", "Bearer " + token);
+            return builder;
+        }
+
+        private long seededProduct() {
+            return any(catalog.productIds);
+        }
+
+        private String seededProductIds(int count) {
+            StringBuilder ids = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                if (i > 0) ids.append(',');
+                ids.append(seededProduct());
+            }
+            return ids.toString();
+        }
+
+        private long any(List<Long> ids) {
+            return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        }
+
+        private long takeLast(List<Long> ids) {
+            return ids.remove(ids.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package barbosa.guilherme.backend.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Every request of the replayed mix must still succeed, or the load report measures error pages instead of the API
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loaddriver;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "management.server.port=0"
+})
+class ApiLoadDriverTests {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void everyOperationOfTheMixSucceeds() throws Exception {
+        Map<String, Integer> statuses = ApiLoadDriver.runEachOperationOnce(context, port);
+
+        assertThat(statuses).hasSize(18);
+        assertThat(statuses).allSatisfy((operation, status) -> assertThat(status).as(operation).isBetween(200, 399));
+    }
+}
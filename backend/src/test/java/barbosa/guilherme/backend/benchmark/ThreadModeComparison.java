@@ -0,0 +1,166 @@
+package barbosa.guilherme.backend.benchmark;
+
+import barbosa.guilherme.backend.BackendApplication;
+import barbosa.guilherme.backend.model.Category;
+import barbosa.guilherme.backend.model.Product;
+import barbosa.guilherme.backend.repository.CategoryRepository;
+import barbosa.guilherme.backend.repository.ProductRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Boots the application twice, once on the default platform-thread Tomcat pool and once with the "virtual"
+ * profile, and drives the same closed-loop load against both. Run with:
+ *
+ *   mvn -Pthread-benchmark test-compile exec:java
+ *
+ * Tunables (system properties): benchmark.concurrency (400), benchmark.requests (20000), benchmark.warmup (2000),
+ * benchmark.products (2000), benchmark.path (/products?fields=id,name,price, which skips the catalog snapshot).
+ * The default database is in-memory H2, which runs in-process and never blocks on a socket, so it shows neither
+ * the JDBC wait that virtual threads are meant to hide nor the carrier pinning of the MySQL driver; the report
+ * says so. Point benchmark.datasource.url (plus benchmark.datasource.username/password) at a scratch MySQL
+ * schema for numbers that mean anything; the schema is dropped when each run ends.
+ */
+public final class ThreadModeComparison {
+    private static final String H2_URL = "jdbc:h2:mem:thread-benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER";
+
+    private ThreadModeComparison() {}
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("benchmark.concurrency", 400);
+        int requests = Integer.getInteger("benchmark.requests", 20_000);
+        int warmup = Integer.getInteger("benchmark.warmup", 2_000);
+        int products = Integer.getInteger("benchmark.products", 2_000);
+        String path = System.getProperty("benchmark.path", "/products?fields=id,name,price");
+
+        String database = System.getProperty("benchmark.datasource.url", H2_URL);
+
+        List<Result> results = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = SpringApplication.run(BackendApplication.class, arguments(virtual))) {
+                seed(context, products);
+                int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+                URI uri = URI.create("http://localhost:" + port + path);
+                drive(uri, concurrency, warmup);
+                results.add(drive(uri, concurrency, requests).named(virtual ? "virtual" : "platform"));
+            }
+        }
+
+        System.out.printf("%ndatabase: %s%n", database);
+        if (database.equals(H2_URL)) {
+            System.out.println("warning: in-memory H2 does no blocking I/O; set benchmark.datasource.url to a MySQL "
+                    + "schema to measure JDBC waits and driver pinning");
+        }
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %8s%n",
+                "mode", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors");
+        for (Result result : results) {
+            System.out.printf("%-10s %10.0f %10.2f %10.2f %10.2f %10.2f %8d%n", result.name, result.throughput(),
+                    result.percentileMillis(50), result.percentileMillis(90), result.percentileMillis(99),
+                    result.percentileMillis(100), result.errors);
+        }
+    }
+
+    private static String[] arguments(boolean virtual) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--management.server.port=0",
+                "--spring.datasource.url=" + System.getProperty("benchmark.datasource.url", H2_URL),
+                "--spring.datasource.username=" + System.getProperty("benchmark.datasource.username", "sa"),
+                "--spring.datasource.password=" + System.getProperty("benchmark.datasource.password", ""),
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        if (System.getProperty("benchmark.datasource.url") == null) {
+            arguments.add("--spring.datasource.driver-class-name=org.h2.Driver");
+            arguments.add("--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect");
+        }
+        if (virtual) arguments.add("--spring.profiles.active=virtual");
+        return arguments.toArray(String[]::new);
+    }
+
+    private static void seed(ConfigurableApplicationContext context, int products) {
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            categories.add(categoryRepository.save(Category.builder().name("Category " + i).slug("category-" + i).build()));
+        }
+        List<Product> batch = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            batch.add(Product.builder().name("Product " + i).description("Benchmark product " + i)
+                    .price(1.0 + i % 500).category(categories.get(i % categories.size())).build());
+        }
+        productRepository.saveAll(batch);
+    }
+
+    // Closed loop: at most `concurrency` requests in flight, each client thread issuing the next one when done
+    private static Result drive(URI uri, int concurrency, int requests) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                int slot = i;
+                inFlight.acquire();
+                clients.execute(() -> {
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) errors.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        latencies[slot] = System.nanoTime() - sent;
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return new Result(System.nanoTime() - start, latencies, errors.get());
+    }
+
+    private static final class Result {
+        private final long elapsedNanos;
+        private final long[] latencies;
+        private final int errors;
+        private String name;
+
+        private Result(long elapsedNanos, long[] latencies, int errors) {
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies.clone();
+            Arrays.sort(this.latencies);
+            this.errors = errors;
+        }
+
+        private Result named(String name) {
+            this.name = name;
+            return this;
+        }
+
+        private double throughput() {
+            return latencies.length / (elapsedNanos / 1e9);
+        }
+
+        private double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package barbosa.guilherme.backend.config;
+
+import barbosa.guilherme.backend.service.CatalogSnapshotService;
+import barbosa.guilherme.backend.service.CatalogSnapshotService.CatalogRoute;
+import barbosa.guilherme.backend.service.CatalogSnapshotService.Snapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogSnapshotInterceptorTests {
+    private static final byte[] JSON = "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] GZIP = {31, -117, 8, 0};
+    private static final Snapshot SNAPSHOT = new Snapshot("\"p1-c1\"", JSON, GZIP);
+
+    private CatalogSnapshotService snapshots;
+    private CatalogSnapshotInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        snapshots = mock(CatalogSnapshotService.class);
+        when(snapshots.current(CatalogRoute.PRODUCTS)).thenReturn(Optional.of(SNAPSHOT));
+        interceptor = new CatalogSnapshotInterceptor(snapshots, CatalogRoute.PRODUCTS);
+    }
+
+    @Test
+    void identityAndGzipCarryDifferentEtags() throws Exception {
+        MockHttpServletResponse identity = handle(request(null, null));
+        MockHttpServletResponse gzip = handle(request("gzip, deflate", null));
+
+        assertThat(identity.getHeader("ETag")).isEqualTo("\"p1-c1\"");
+        assertThat(identity.getHeader("Content-Encoding")).isNull();
+        assertThat(identity.getContentAsByteArray()).isEqualTo(JSON);
+        assertThat(gzip.getHeader("ETag")).isEqualTo("\"p1-c1-gz\"");
+        assertThat(gzip.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(gzip.getContentAsByteArray()).isEqualTo(GZIP);
+        assertThat(gzip.getHeader("Vary")).isEqualTo("Accept-Encoding");
+    }
+
+    @Test
+    void matchingEtagOfTheSameCodingGets304() throws Exception {
+        assertThat(handle(request("gzip", "\"p1-c1-gz\"")).getStatus()).isEqualTo(304);
+        assertThat(handle(request(null, "\"p1-c1\"")).getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void etagOfTheOtherCodingGetsTheFullBody() throws Exception {
+        MockHttpServletResponse identity = handle(request(null, "\"p1-c1-gz\""));
+        MockHttpServletResponse gzip = handle(request("gzip", "\"p1-c1\""));
+
+        assertThat(identity.getStatus()).isEqualTo(200);
+        assertThat(identity.getContentAsByteArray()).isEqualTo(JSON);
+        assertThat(gzip.getStatus()).isEqualTo(200);
+        assertThat(gzip.getContentAsByteArray()).isEqualTo(GZIP);
+    }
+
+    @Test
+    void smallSnapshotWithoutGzipIsServedAsIdentity() throws Exception {
+        when(snapshots.current(CatalogRoute.PRODUCTS)).thenReturn(Optional.of(new Snapshot("\"p1-c1\"", JSON, null)));
+
+        MockHttpServletResponse response = handle(request("gzip", null));
+
+        assertThat(response.getHeader("ETag")).isEqualTo("\"p1-c1\"");
+        assertThat(response.getHeader("Content-Encoding")).isNull();
+    }
+
+    @Test
+    void queriesAndMissingSnapshotsFallThroughToTheController() throws Exception {
+        MockHttpServletRequest query = request(null, null);
+        query.setQueryString("fields=id");
+        assertThat(interceptor.preHandle(query, new MockHttpServletResponse(), null)).isTrue();
+
+        when(snapshots.current(CatalogRoute.PRODUCTS)).thenReturn(Optional.empty());
+        assertThat(interceptor.preHandle(request(null, null), new MockHttpServletResponse(), null)).isTrue();
+    }
+
+    private MockHttpServletResponse handle(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request, response, null)).isFalse();
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String acceptEncoding, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        if (acceptEncoding != null) request.addHeader("Accept-Encoding", acceptEncoding);
+        if (ifNoneMatch != null) request.addHeader("If-None-Match", ifNoneMatch);
+        return request;
+    }
+}
@@ -0,0 +1,91 @@
+package barbosa.guilherme.backend.config;
+
+import barbosa.guilherme.backend.responses.PinningSite;
+import barbosa.guilherme.backend.responses.PinningStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadPinningMonitorTests {
+    private final Object lock = new Object();
+    private VirtualThreadPinningMonitor monitor;
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @Test
+    void pinInsideSynchronizedIsRecordedAgainstOurFrame() throws Exception {
+        monitor = new VirtualThreadPinningMonitor(10, 100);
+        monitor.start();
+
+        Thread.ofVirtual().start(this::sleepHoldingMonitor).join();
+
+        PinningStats stats = awaitEvents(1);
+        assertThat(stats.thresholdMillis()).isEqualTo(10);
+        assertThat(stats.totalPinnedMillis()).isGreaterThanOrEqualTo(50);
+        assertThat(stats.sites()).singleElement().satisfies(site -> {
+            assertThat(site.site()).contains(VirtualThreadPinningMonitorTests.class.getName() + ".sleepHoldingMonitor");
+            assertThat(site.maxPinnedMillis()).isGreaterThanOrEqualTo(50);
+        });
+    }
+
+    @Test
+    void pinsShorterThanTheThresholdAreIgnored() throws Exception {
+        monitor = new VirtualThreadPinningMonitor(10_000, 100);
+        monitor.start();
+
+        Thread.ofVirtual().start(this::sleepHoldingMonitor).join();
+        // Gives the stream time to deliver anything it did record
+        Thread.sleep(2_000);
+
+        assertThat(monitor.stats().events()).isZero();
+    }
+
+    @Test
+    void sitesBeyondTheLimitAreFoldedTogether() throws Exception {
+        monitor = new VirtualThreadPinningMonitor(10, 1);
+        monitor.start();
+
+        Thread.ofVirtual().start(this::sleepHoldingMonitor).join();
+        awaitEvents(1);
+        Thread.ofVirtual().start(this::sleepHoldingMonitorElsewhere).join();
+
+        PinningStats stats = awaitEvents(2);
+        assertThat(stats.sites()).extracting(PinningSite::site).hasSize(2).contains("(other)");
+    }
+
+    // The sleep stays inline so the closest frame of our code is the method holding the monitor
+    private void sleepHoldingMonitor() {
+        synchronized (lock) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void sleepHoldingMonitorElsewhere() {
+        synchronized (lock) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // JFR delivers events to the stream in periodic flushes, about once a second
+    private PinningStats awaitEvents(long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (monitor.stats().events() < count && System.nanoTime() < deadline) Thread.sleep(50);
+        PinningStats stats = monitor.stats();
+        assertThat(stats.events()).isEqualTo(count);
+        return stats;
+    }
+}
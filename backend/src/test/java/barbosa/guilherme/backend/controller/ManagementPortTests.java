@@ -0,0 +1,68 @@
+package barbosa.guilherme.backend.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Tests switch metrics export off by default, which would hide the Prometheus endpoint
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:web;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "management.server.port=0"
+})
+class ManagementPortTests {
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void probesAndScrapesNeedNoTokenOnTheManagementPort() throws Exception {
+        assertThat(managementPort).isNotEqualTo(port);
+
+        HttpResponse<String> health = send("GET", managementPort, "/actuator/health");
+        HttpResponse<String> prometheus = send("GET", managementPort, "/actuator/prometheus");
+
+        assertThat(health.statusCode()).isEqualTo(200);
+        assertThat(health.body()).contains("UP");
+        assertThat(prometheus.statusCode()).isEqualTo(200);
+        assertThat(prometheus.body()).contains("jvm_memory_used_bytes");
+    }
+
+    @Test
+    void managementPortOnlyAcceptsReads() throws Exception {
+        assertThat(send("POST", managementPort, "/actuator/health").statusCode()).isEqualTo(403);
+    }
+
+    @Test
+    void actuatorIsNotServedOnThePublicPort() throws Exception {
+        assertThat(send("GET", port, "/actuator/health").statusCode()).isIn(403, 404);
+        assertThat(send("GET", port, "/actuator/prometheus").statusCode()).isIn(403, 404);
+    }
+
+    private HttpResponse<String> send(String method, int port, String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,92 @@
+package barbosa.guilherme.backend.controller;
+
+import barbosa.guilherme.backend.repository.UserRepository;
+import barbosa.guilherme.backend.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:web;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "management.server.port=0"
+})
+class UserControllerTests {
+    private static final long ADMIN_ID = 1;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void nonAdminCannotUpdateAnotherAccount() throws Exception {
+        String body = "{\"id\":" + ADMIN_ID + ",\"email\":\"taken@example.com\",\"password\":\"Takeover123\"}";
+
+        HttpResponse<String> response = send("PUT", "/users", userToken(), body);
+
+        assertThat(response.statusCode()).isEqualTo(403);
+        assertThat(userRepository.findById(ADMIN_ID)).hasValueSatisfying(
+                admin -> assertThat(admin.getEmail()).isEqualTo("admin@admin.com"));
+    }
+
+    @Test
+    void nonAdminCannotListFindOrDeleteUsers() throws Exception {
+        String token = userToken();
+
+        assertThat(send("GET", "/users", token, null).statusCode()).isEqualTo(403);
+        assertThat(send("GET", "/users/find/" + ADMIN_ID, token, null).statusCode()).isEqualTo(403);
+        assertThat(send("DELETE", "/users/delete/" + ADMIN_ID, token, null).statusCode()).isEqualTo(403);
+        assertThat(userRepository.existsById(ADMIN_ID)).isTrue();
+    }
+
+    @Test
+    void anonymousCallerCannotUpdateUsers() throws Exception {
+        assertThat(send("PUT", "/users", null, "{\"id\":" + ADMIN_ID + "}").statusCode()).isEqualTo(403);
+    }
+
+    @Test
+    void adminCanUpdateUsers() throws Exception {
+        String body = "{\"id\":" + ADMIN_ID + ",\"name\":\"Administrator\"}";
+
+        assertThat(send("PUT", "/users", jwtUtil.generateToken("admin@admin.com", List.of("ADMIN")), body).statusCode())
+                .isEqualTo(204);
+        assertThat(send("GET", "/users/find/" + ADMIN_ID, jwtUtil.generateToken("admin@admin.com", List.of("ADMIN")), null)
+                .body()).contains("Administrator");
+    }
+
+    private String userToken() {
+        return jwtUtil.generateToken("user@example.com", List.of("USER"));
+    }
+
+    private HttpResponse<String> send(String method, String path, String token, String body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json");
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
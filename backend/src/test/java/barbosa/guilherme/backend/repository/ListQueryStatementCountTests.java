@@ -0,0 +1,182 @@
+package barbosa.guilherme.backend.repository;
+
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.model.Category;
+import barbosa.guilherme.backend.model.Product;
+import barbosa.guilherme.backend.model.Stock;
+import barbosa.guilherme.backend.responses.BatchLookupResponse;
+import barbosa.guilherme.backend.responses.CategoryTotals;
+import barbosa.guilherme.backend.responses.ProductResponse;
+import barbosa.guilherme.backend.responses.StockResponse;
+import barbosa.guilherme.backend.util.BatchLookups;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(FieldsetRepository.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statements;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ListQueryStatementCountTests {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private FieldsetRepository fieldsetRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void productListUsesSingleStatementRegardlessOfSize(int size) {
+        seed(size);
+
+        List<ProductResponse> products = productRepository.findAllResponses();
+
+        assertThat(products).hasSize(size);
+        assertThat(products).allSatisfy(product -> assertThat(product.category().name()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void stockListUsesSingleStatementRegardlessOfSize(int size) {
+        seed(size);
+
+        List<StockResponse> stock = stockRepository.findAllResponses();
+
+        assertThat(stock).hasSize(size);
+        assertThat(stock).allSatisfy(row -> assertThat(row.product().category().name()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void stockFieldsetUsesSingleStatementAndNestsJoinedColumns(int size) {
+        seed(size);
+
+        List<Map<String, Object>> stock = fieldsetRepository.findAll(EntityType.STOCK, "id,product.name,product.category.name");
+
+        assertThat(stock).hasSize(size);
+        assertThat(stock).allSatisfy(row -> {
+            assertThat(row).containsOnlyKeys("id", "product");
+            assertThat(row.get("product")).asInstanceOf(InstanceOfAssertFactories.MAP).containsOnlyKeys("name", "category");
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void categoryTotalsAggregateInSingleStatement(int size) {
+        seed(size);
+
+        List<CategoryTotals> totals = categoryRepository.findCategoryTotals();
+
+        assertThat(totals).hasSize(size);
+        assertThat(totals).allSatisfy(category -> {
+            assertThat(category.products()).isEqualTo(1);
+            assertThat(category.stockRows()).isEqualTo(1);
+        });
+        assertThat(totals.stream().mapToLong(CategoryTotals::quantity).sum()).isEqualTo((long) size * (size - 1) / 2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void productLookupByIdsUsesSingleStatementAndKeepsRequestOrder(int size) {
+        seed(size);
+        List<Long> ids = reversedIdsPlusMissing(productRepository.findAll().stream().map(Product::getId).toList());
+
+        List<Long> distinctIds = BatchLookups.distinctIds(ids);
+        BatchLookupResponse<ProductResponse> lookup = BatchLookupResponse.of(distinctIds,
+                productRepository.findResponsesByIdIn(distinctIds), ProductResponse::id);
+
+        assertThat(lookup.items()).extracting(ProductResponse::id).containsExactlyElementsOf(distinctIds.subList(0, size));
+        assertThat(lookup.missing()).containsExactly(Long.MAX_VALUE);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void stockLookupByIdsUsesSingleStatementAndKeepsRequestOrder(int size) {
+        seed(size);
+        List<Long> ids = reversedIdsPlusMissing(stockRepository.findAll().stream().map(Stock::getId).toList());
+
+        List<Long> distinctIds = BatchLookups.distinctIds(ids);
+        BatchLookupResponse<StockResponse> lookup = BatchLookupResponse.of(distinctIds,
+                stockRepository.findResponsesByIdIn(distinctIds), StockResponse::id);
+
+        assertThat(lookup.items()).extracting(StockResponse::id).containsExactlyElementsOf(distinctIds.subList(0, size));
+        assertThat(lookup.items()).allSatisfy(row -> assertThat(row.product().category().name()).isNotNull());
+        assertThat(lookup.missing()).containsExactly(Long.MAX_VALUE);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    // Reversed so the result order cannot just follow the primary key, with a repeat and an id that does not exist
+    private List<Long> reversedIdsPlusMissing(List<Long> existing) {
+        List<Long> ids = new ArrayList<>(existing);
+        Collections.reverse(ids);
+        ids.add(ids.get(0));
+        ids.add(Long.MAX_VALUE);
+        entityManager.clear();
+        statistics.clear();
+        return ids;
+    }
+
+    private void seed(int size) {
+        for (int i = 0; i < size; i++) {
+            // Spread products over several categories so a per-row lazy load would be visible
+            Category category = Category.builder().name("Category " + i).slug("category-" + i).build();
+            entityManager.persist(category);
+            Product product = Product.builder().name("Product " + i).price(10.0 + i).category(category).build();
+            entityManager.persist(product);
+            entityManager.persist(Stock.builder().product(product).quantity(i).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+}
@@ -0,0 +1,134 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.exception.BadRequestException;
+import barbosa.guilherme.backend.model.Product;
+import barbosa.guilherme.backend.requests.BatchOperation;
+import barbosa.guilherme.backend.requests.BatchRequestBody;
+import barbosa.guilherme.backend.requests.ProductPostRequestBody;
+import barbosa.guilherme.backend.responses.BatchOperationResult;
+import barbosa.guilherme.backend.responses.BatchResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BatchServiceTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ProductService productService;
+    private CategoryService categoryService;
+    private UserService userService;
+    private PlatformTransactionManager transactionManager;
+    private BatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        productService = mock(ProductService.class);
+        categoryService = mock(CategoryService.class);
+        userService = mock(UserService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        batchService = new BatchService(productService, categoryService, mock(StockService.class), userService,
+                objectMapper, Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, 3);
+    }
+
+    @Test
+    void everyOperationGetsItsResultAndTheBatchCommits() {
+        when(productService.save(any(ProductPostRequestBody.class))).thenReturn(Product.builder().id(10L).build());
+
+        BatchResponse response = batchService.execute(request(
+                operation("products", "add", null, Map.of("name", "Mouse", "price", 10.0, "categoryId", 1)),
+                operation("products", "update", null, Map.of("id", 4, "name", "Teclado", "price", 20.0)),
+                operation("categories", "delete", 2L, null)), false);
+
+        assertThat(response.committed()).isTrue();
+        assertThat(response.results()).containsExactly(
+                new BatchOperationResult(0, 201, 10L, null),
+                new BatchOperationResult(1, 200, 4L, null),
+                new BatchOperationResult(2, 204, 2L, null));
+        verify(transactionManager).commit(any());
+        verify(transactionManager, never()).rollback(any());
+    }
+
+    @Test
+    void firstFailingOperationRollsEverythingBack() {
+        doThrow(new BadRequestException("Category not found")).when(categoryService).delete(2L);
+
+        BatchResponse response = batchService.execute(request(
+                operation("products", "delete", 1L, null),
+                operation("categories", "delete", 2L, null),
+                operation("products", "delete", 3L, null)), false);
+
+        assertThat(response.committed()).isFalse();
+        assertThat(response.results()).containsExactly(
+                new BatchOperationResult(0, 204, 1L, null),
+                new BatchOperationResult(1, 400, null, "Category not found"));
+        verify(productService, never()).delete(3L);
+        verify(transactionManager).rollback(any(TransactionStatus.class));
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void invalidBodyIsReportedAgainstItsOperation() {
+        BatchResponse response = batchService.execute(request(
+                operation("products", "add", null, Map.of("name", "ab", "price", 1.0, "categoryId", 1))), false);
+
+        assertThat(response.committed()).isFalse();
+        assertThat(response.results()).singleElement().satisfies(result -> {
+            assertThat(result.status()).isEqualTo(400);
+            assertThat(result.error()).contains("name");
+        });
+    }
+
+    @Test
+    void conflictAtCommitIsNotBlamedOnAnyOperation() {
+        doThrow(new OptimisticLockingFailureException("stale")).when(transactionManager).commit(any());
+
+        BatchResponse response = batchService.execute(request(operation("products", "delete", 1L, null)), false);
+
+        assertThat(response.committed()).isFalse();
+        assertThat(response.results()).last().isEqualTo(new BatchOperationResult(-1, 409, null, "Modified concurrently"));
+    }
+
+    @Test
+    void userOperationsNeedAdmin() {
+        assertThatThrownBy(() -> batchService.execute(request(operation("users", "delete", 1L, null)), false))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN));
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    @Test
+    void tooManyOperationsAreRejectedUpFront() {
+        BatchOperation delete = operation("products", "delete", 1L, null);
+
+        assertThatThrownBy(() -> batchService.execute(request(delete, delete, delete, delete), false))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private BatchOperation operation(String resource, String action, Long id, Map<String, Object> body) {
+        return objectMapper.convertValue(body == null
+                ? Map.of("resource", resource, "action", action, "id", id)
+                : Map.of("resource", resource, "action", action, "body", body), BatchOperation.class);
+    }
+
+    private static BatchRequestBody request(BatchOperation... operations) {
+        BatchRequestBody request = new BatchRequestBody();
+        request.setOperations(List.of(operations));
+        return request;
+    }
+}
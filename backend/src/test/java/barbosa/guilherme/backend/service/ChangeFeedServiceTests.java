@@ -0,0 +1,126 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.event.ChangeType;
+import barbosa.guilherme.backend.event.EntitiesImportedEvent;
+import barbosa.guilherme.backend.event.EntityChangedEvent;
+import barbosa.guilherme.backend.event.EntityType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeFeedServiceTests {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ChangeFeedService service;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void stuckClientDoesNotHoldBackTheOthers() throws Exception {
+        service = new ChangeFeedService(16, 60_000, 60_000, 0);
+        StuckEmitter stuck = new StuckEmitter();
+        RecordingEmitter fast = new RecordingEmitter();
+        service.subscribe(stuck);
+        service.subscribe(fast);
+
+        change(1);
+        assertThat(stuck.writing.await(5, TimeUnit.SECONDS)).isTrue();
+        change(2);
+
+        fast.awaitEvents(2);
+        assertThat(fast.events).allMatch(event -> event.contains("event:change"));
+    }
+
+    @Test
+    void subscriberStuckPastTheWriteTimeoutIsDropped() throws Exception {
+        service = new ChangeFeedService(16, 60_000, 500, 0);
+        StuckEmitter stuck = new StuckEmitter();
+        service.subscribe(stuck);
+        service.subscribe(new RecordingEmitter());
+
+        change(1);
+        assertThat(stuck.writing.await(5, TimeUnit.SECONDS)).isTrue();
+        service.dropStalledSubscribers();
+        assertThat(service.subscriberCount()).isEqualTo(2);
+
+        Thread.sleep(600);
+        service.dropStalledSubscribers();
+        assertThat(service.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void importBatchesAreCoalescedIntoOneResync() throws Exception {
+        service = new ChangeFeedService(16, 60_000, 60_000, 0);
+        RecordingEmitter client = new RecordingEmitter();
+        service.subscribe(client);
+
+        for (long batch = 0; batch < 5; batch++) {
+            service.onEntitiesImported(new EntitiesImportedEvent(EntityType.PRODUCT, List.of(batch)));
+        }
+        service.resyncAfterImports();
+        service.resyncAfterImports();
+
+        client.awaitEvents(1);
+        Thread.sleep(100);
+        assertThat(client.events).singleElement().asString().contains("event:resync");
+    }
+
+    @Test
+    void resyncWaitsUntilTheImportGoesQuiet() {
+        service = new ChangeFeedService(16, 60_000, 60_000, 60_000);
+        RecordingEmitter client = new RecordingEmitter();
+        service.subscribe(client);
+
+        service.onEntitiesImported(new EntitiesImportedEvent(EntityType.PRODUCT, List.of(1L)));
+        service.resyncAfterImports();
+
+        assertThat(client.events).isEmpty();
+    }
+
+    private void change(long id) {
+        service.onEntityChanged(new EntityChangedEvent(EntityType.PRODUCT, id, ChangeType.UPDATED));
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            events.add(builder.build().stream()
+                    .map(part -> part.getData().toString())
+                    .collect(Collectors.joining()));
+        }
+
+        void awaitEvents(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count && System.nanoTime() < deadline) Thread.sleep(10);
+            assertThat(events).hasSizeGreaterThanOrEqualTo(count);
+        }
+    }
+
+    // Stands in for a client that stopped reading: the first write never returns until the test ends
+    private class StuckEmitter extends SseEmitter {
+        final CountDownLatch writing = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.event.ChangeType;
+import barbosa.guilherme.backend.event.EntitiesImportedEvent;
+import barbosa.guilherme.backend.event.EntityChangedEvent;
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.exception.BadRequestException;
+import barbosa.guilherme.backend.repository.ChangeLogRepository;
+import barbosa.guilherme.backend.responses.SyncResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import(ChangeLogService.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:changelog;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "sync.settle-lag-ms=0",
+        "sync.max-entries=3"
+})
+class ChangeLogServiceTests {
+
+    @Autowired
+    private ChangeLogService service;
+
+    @Autowired
+    private ChangeLogRepository repository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(dataSource).update("DELETE FROM change_log");
+    }
+
+    @Test
+    void pagesThroughTheLogWithHasMore() {
+        inTransaction(() -> {
+            for (long id = 1; id <= 5; id++) change(EntityType.PRODUCT, id, ChangeType.CREATED);
+        });
+
+        SyncResponse first = service.changesSince(0);
+        assertThat(first.hasMore()).isTrue();
+        assertThat(first.changes().get(EntityType.PRODUCT).changed()).containsExactly(1L, 2L, 3L);
+
+        SyncResponse second = service.changesSince(first.version());
+        assertThat(second.hasMore()).isFalse();
+        assertThat(second.changes().get(EntityType.PRODUCT).changed()).containsExactly(4L, 5L);
+
+        SyncResponse empty = service.changesSince(second.version());
+        assertThat(empty.version()).isEqualTo(second.version());
+        assertThat(empty.changes()).isEmpty();
+        assertThat(empty.hasMore()).isFalse();
+    }
+
+    @Test
+    void onlyTheLastChangeOfARowIsReported() {
+        inTransaction(() -> {
+            change(EntityType.CATEGORY, 1, ChangeType.CREATED);
+            change(EntityType.CATEGORY, 1, ChangeType.DELETED);
+            change(EntityType.STOCK, 2, ChangeType.UPDATED);
+        });
+
+        SyncResponse response = service.changesSince(0);
+
+        assertThat(response.changes().get(EntityType.CATEGORY).changed()).isEmpty();
+        assertThat(response.changes().get(EntityType.CATEGORY).deleted()).containsExactly(1L);
+        assertThat(response.changes().get(EntityType.STOCK).changed()).containsExactly(2L);
+    }
+
+    @Test
+    void rolledBackChangesAreNotLogged() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            change(EntityType.PRODUCT, 1, ChangeType.UPDATED);
+            status.setRollbackOnly();
+        });
+
+        assertThat(service.changesSince(0).changes()).isEmpty();
+    }
+
+    @Test
+    void deferredCounterAdjustmentsAreLeftToTheFlush() {
+        inTransaction(() -> service.onEntityChanged(new EntityChangedEvent(EntityType.STOCK, 1, ChangeType.UPDATED, true)));
+
+        assertThat(service.changesSince(0).changes()).isEmpty();
+    }
+
+    @Test
+    void importsAreLoggedAsCreated() {
+        inTransaction(() -> service.onEntitiesImported(new EntitiesImportedEvent(EntityType.PRODUCT, List.of(7L, 8L))));
+
+        assertThat(service.changesSince(0).changes().get(EntityType.PRODUCT).changed()).containsExactly(7L, 8L);
+    }
+
+    @Test
+    void pageEndsAtTheFirstEntryThatHasNotSettled() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        LocalDateTime hourAgo = LocalDateTime.now().minusHours(1);
+        insert(jdbcTemplate, 1, hourAgo);
+        insert(jdbcTemplate, 2, LocalDateTime.now());
+        insert(jdbcTemplate, 3, hourAgo);
+        ChangeLogService lagged = new ChangeLogService(repository, jdbcTemplate, 60_000, 3);
+
+        SyncResponse response = lagged.changesSince(0);
+
+        assertThat(response.changes().get(EntityType.PRODUCT).changed()).containsExactly(1L);
+        assertThat(response.hasMore()).isFalse();
+        assertThat(lagged.changesSince(response.version()).changes()).isEmpty();
+    }
+
+    @Test
+    void transactionCommittingAfterALaterOneIsNotSkipped() {
+        long[] seen = new long[1];
+        inTransaction(() -> {
+            change(EntityType.PRODUCT, 1, ChangeType.UPDATED);
+            // Another transaction starts later and commits first, while this one is still open
+            CompletableFuture.runAsync(() -> inTransaction(() -> change(EntityType.PRODUCT, 2, ChangeType.UPDATED))).join();
+            SyncResponse meanwhile = CompletableFuture.supplyAsync(() -> service.changesSince(0)).join();
+            assertThat(meanwhile.changes().get(EntityType.PRODUCT).changed()).containsExactly(2L);
+            seen[0] = meanwhile.version();
+        });
+
+        assertThat(service.changesSince(seen[0]).changes().get(EntityType.PRODUCT).changed()).containsExactly(1L);
+    }
+
+    @Test
+    void negativeVersionIsRejected() {
+        assertThatThrownBy(() -> service.changesSince(-1)).isInstanceOf(BadRequestException.class);
+    }
+
+    private void change(EntityType type, long id, ChangeType change) {
+        service.onEntityChanged(new EntityChangedEvent(type, id, change));
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, long productId, LocalDateTime changedAt) {
+        jdbcTemplate.update("INSERT INTO change_log (entity_type, entity_id, change_type, changed_at) VALUES (?, ?, ?, ?)",
+                EntityType.PRODUCT.name(), productId, ChangeType.UPDATED.name(), Timestamp.valueOf(changedAt));
+    }
+
+    private void inTransaction(Runnable work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+    }
+}
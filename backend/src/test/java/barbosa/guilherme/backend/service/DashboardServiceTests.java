@@ -0,0 +1,114 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.model.Category;
+import barbosa.guilherme.backend.model.Product;
+import barbosa.guilherme.backend.model.Stock;
+import barbosa.guilherme.backend.repository.CategoryRepository;
+import barbosa.guilherme.backend.repository.ProductRepository;
+import barbosa.guilherme.backend.repository.StockRepository;
+import barbosa.guilherme.backend.responses.CategoryTotals;
+import barbosa.guilherme.backend.responses.DashboardResponse;
+import barbosa.guilherme.backend.responses.DashboardStockRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@Import({DashboardService.class, StockCounterEngine.class, StockLedgerService.class, ChangeLogService.class,
+        TableVersionRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dashboard;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "stock.counter.enabled=true",
+        "stock.counter.journal-dir=target/stock-journal-dashboard-tests"
+})
+class DashboardServiceTests {
+
+    @Autowired
+    private DashboardService service;
+
+    @Autowired
+    private StockCounterEngine engine;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private long filledId;
+    private long emptiedId;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(Category.builder().name("Cabos").slug("cabos").build());
+        Product cable = productRepository.save(Product.builder().name("Cabo").price(2.0).category(category).build());
+        Product adapter = productRepository.save(Product.builder().name("Adaptador").price(3.0).category(category).build());
+        filledId = stockRepository.save(Stock.builder().product(cable).quantity(10).build()).getId();
+        emptiedId = stockRepository.save(Stock.builder().product(adapter).quantity(6).build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Leaves no journaled deltas behind for the next context to replay
+        engine.flush();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String table : List.of("stock_movements", "stock_counter_watermark", "change_log", "stock", "products", "categories")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void unflushedCounterValuesAreShownInRowsAndTotals() {
+        engine.adjust(filledId, 5, "RESTOCK");
+        engine.adjust(emptiedId, -6, "SALE");
+
+        DashboardResponse dashboard = service.dashboard();
+
+        assertThat(stockRepository.findQuantityById(filledId)).hasValue(10);
+        assertThat(dashboard.stock()).extracting(DashboardStockRow::id, DashboardStockRow::quantity)
+                .containsExactly(tuple(filledId, 15), tuple(emptiedId, 0));
+        CategoryTotals category = dashboard.categories().get(0);
+        assertThat(category.quantity()).isEqualTo(15);
+        assertThat(category.value()).isEqualTo(30.0);
+        assertThat(dashboard.totals().quantity()).isEqualTo(15);
+        assertThat(dashboard.totals().value()).isEqualTo(30.0);
+        assertThat(dashboard.totals().lowStock()).isEqualTo(1);
+        assertThat(dashboard.totals().outOfStock()).isEqualTo(1);
+    }
+
+    @Test
+    void rowsWithoutACounterKeepTheirTableValues() {
+        DashboardResponse dashboard = service.dashboard();
+
+        assertThat(dashboard.stock()).extracting(DashboardStockRow::quantity).containsExactly(10, 6);
+        assertThat(dashboard.totals().quantity()).isEqualTo(16);
+        assertThat(dashboard.totals().value()).isEqualTo(38.0);
+    }
+}
@@ -0,0 +1,91 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.repository.ProductRepository;
+import barbosa.guilherme.backend.repository.StockRepository;
+import barbosa.guilherme.backend.responses.ProductResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExportServiceTests {
+    private static final int ROWS = 5000;
+
+    private ProductRepository productRepository;
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        exportService = new ExportService(productRepository, mock(StockRepository.class), new ObjectMapper(), 1000);
+    }
+
+    @Test
+    void rowsReachTheClientWhileTheCursorIsStillBeingRead() throws Exception {
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        when(productRepository.streamAllResponses()).thenReturn(Stream.iterate(1L, id -> id + 1)
+                .limit(ROWS)
+                .peek(id -> pulled.incrementAndGet())
+                .map(id -> product(id, "Product " + id))
+                .onClose(() -> closed.set(true)));
+        int[] pulledAtFirstWrite = {-1};
+        OutputStream client = new OutputStream() {
+            @Override
+            public void write(int b) {
+                if (pulledAtFirstWrite[0] < 0) pulledAtFirstWrite[0] = pulled.get();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                write(b[off]);
+            }
+        };
+
+        exportService.exportProducts(DataFormat.NDJSON, client);
+
+        assertThat(pulledAtFirstWrite[0]).isPositive().isLessThan(ROWS);
+        assertThat(pulled).hasValue(ROWS);
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws Exception {
+        when(productRepository.streamAllResponses()).thenReturn(Stream.of(product(1, "Mouse"), product(2, "Teclado")));
+
+        String body = export(DataFormat.NDJSON);
+
+        assertThat(body.lines()).hasSize(2);
+        assertThat(body.lines().findFirst()).hasValueSatisfying(line -> assertThat(line)
+                .startsWith("{").contains("\"id\":1", "\"name\":\"Mouse\"", "\"category\":{"));
+    }
+
+    @Test
+    void csvQuotesValuesThatNeedIt() throws Exception {
+        when(productRepository.streamAllResponses()).thenReturn(Stream.of(product(1, "Cabo, 2m \"USB\"")));
+
+        assertThat(export(DataFormat.CSV).lines()).containsExactly(
+                "id,name,description,price,categoryId,categoryName",
+                "1,\"Cabo, 2m \"\"USB\"\"\",,10.0,3,Periféricos");
+    }
+
+    private String export(DataFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportProducts(format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static ProductResponse product(long id, String name) {
+        return new ProductResponse(id, name, null, 10.0, 0L, 3L, "Periféricos", "perifericos");
+    }
+}
@@ -0,0 +1,94 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.responses.ConflictStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class OptimisticRetryExecutorTests {
+
+    private final OptimisticRetryExecutor executor = new OptimisticRetryExecutor(mock(PlatformTransactionManager.class), 3);
+
+    @Test
+    void conflictWithoutIfMatchIsRetriedOnFreshState() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = executor.execute(EntityType.PRODUCT, null, () -> {
+            if (attempts.incrementAndGet() < 3) throw new OptimisticLockingFailureException("stale");
+            return "saved";
+        });
+
+        assertThat(result).isEqualTo("saved");
+        assertThat(stats()).isEqualTo(new ConflictStats(2, 2, 0, 0));
+    }
+
+    @Test
+    void exhaustedRetriesAnswer409() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.run(EntityType.PRODUCT, null, () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("stale");
+        })).isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+        assertThat(attempts).hasValue(3);
+        assertThat(stats()).isEqualTo(new ConflictStats(3, 2, 1, 0));
+    }
+
+    @Test
+    void conflictWithIfMatchAnswers412WithoutRetrying() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.run(EntityType.PRODUCT, 4L, () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("stale");
+        })).isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED));
+
+        assertThat(attempts).hasValue(1);
+        assertThat(stats()).isEqualTo(new ConflictStats(1, 0, 0, 1));
+    }
+
+    @Test
+    void staleIfMatchVersionAnswers412BeforeAnyChange() {
+        assertThatThrownBy(() -> executor.checkVersion(EntityType.PRODUCT, 4L, 5L))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED));
+        executor.checkVersion(EntityType.PRODUCT, 5L, 5L);
+        executor.checkVersion(EntityType.PRODUCT, null, 5L);
+
+        assertThat(stats().preconditionFailures()).isEqualTo(1);
+    }
+
+    @Test
+    void insideACallersTransactionThereIsASingleAttempt() {
+        AtomicInteger attempts = new AtomicInteger();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThatThrownBy(() -> executor.run(EntityType.PRODUCT, null, () -> {
+                attempts.incrementAndGet();
+                throw new OptimisticLockingFailureException("stale");
+            })).isInstanceOfSatisfying(ResponseStatusException.class,
+                    e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertThat(attempts).hasValue(1);
+    }
+
+    private ConflictStats stats() {
+        return executor.stats().get(EntityType.PRODUCT);
+    }
+}
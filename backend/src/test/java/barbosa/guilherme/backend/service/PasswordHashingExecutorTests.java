@@ -0,0 +1,71 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.exception.RestExceptionHandler;
+import barbosa.guilherme.backend.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingExecutorTests {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(anyString())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return "hash:" + invocation.getArgument(0);
+        });
+        executor = new PasswordHashingExecutor(encoder, 1, 1, 7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void fullQueueRejectsWithRetryAfter() throws Exception {
+        CompletableFuture<String> running = executor.encode("a");
+        CompletableFuture<String> queued = executor.encode("b");
+
+        ServiceOverloadedException rejected =
+                catchThrowableOfType(() -> executor.encode("c"), ServiceOverloadedException.class);
+
+        assertThat(rejected).isNotNull();
+        assertThat(rejected.getRetryAfterSeconds()).isEqualTo(7);
+        assertThat(executor.stats().rejected()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(10, TimeUnit.SECONDS)).isEqualTo("hash:a");
+        assertThat(queued.get(10, TimeUnit.SECONDS)).isEqualTo("hash:b");
+    }
+
+    @Test
+    void overloadIsAnswered503WithRetryAfter() {
+        ResponseEntity<Map<String, String>> response = new RestExceptionHandler()
+                .handleServiceOverloaded(new ServiceOverloadedException("busy", 7));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("7");
+        assertThat(response.getBody()).containsEntry("message", "busy");
+    }
+}
@@ -0,0 +1,165 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.exception.BadRequestException;
+import barbosa.guilherme.backend.model.Category;
+import barbosa.guilherme.backend.repository.CategoryRepository;
+import barbosa.guilherme.backend.responses.ImportResult;
+import barbosa.guilherme.backend.responses.ImportRowError;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import(ProductImportService.class)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:productimport;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "product.import.batch-size=2",
+        "product.import.max-reported-errors=3"
+})
+class ProductImportServiceTests {
+
+    @Autowired
+    private ProductImportService service;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        categoryId = categoryRepository.save(Category.builder().name("Cabos").slug("cabos").build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("ALTER TABLE products DROP CONSTRAINT IF EXISTS rejects_marked_names");
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("DELETE FROM categories");
+    }
+
+    @Test
+    void csvImportStoresValidRowsAndReportsTheRestByLine() throws IOException {
+        String csv = String.join("\n",
+                "name,description,price,categoryId",
+                "Cabo HDMI,\"2m, trançado\",19.9," + categoryId,
+                "",
+                "Cabo USB,,abc," + categoryId,
+                "Ab,,5.0," + categoryId,
+                "Cabo VGA,,9.9,999999",
+                "\"Cabo DVI,,9.9," + categoryId,
+                "Cabo Rede,,4.5," + categoryId);
+
+        ImportResult result = service.importProducts(stream(csv), DataFormat.CSV);
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(4);
+        assertThat(result.errors()).extracting(ImportRowError::line).containsExactly(4L, 5L, 6L);
+        assertThat(result.errors().get(0).message()).startsWith("Malformed row");
+        assertThat(result.errors().get(1).message()).contains("name");
+        assertThat(result.errors().get(2).message()).isEqualTo("Category not found: 999999");
+        assertThat(jdbcTemplate.queryForList("SELECT description FROM products WHERE name = 'Cabo HDMI'", String.class))
+                .containsExactly("2m, trançado");
+        assertThat(productNames()).containsExactlyInAnyOrder("Cabo HDMI", "Cabo Rede");
+    }
+
+    @Test
+    void ndjsonImportSkipsMalformedAndInvalidObjects() throws IOException {
+        String ndjson = String.join("\n",
+                "{\"name\":\"Mouse\",\"price\":50.0,\"categoryId\":" + categoryId + "}",
+                "{\"name\":\"Teclado\",",
+                "{\"name\":\"Monitor\",\"price\":-1,\"categoryId\":" + categoryId + "}",
+                "{\"name\":\"Webcam\",\"price\":120.0}",
+                "{\"name\":\"Headset\",\"price\":80.0,\"categoryId\":" + categoryId + "}");
+
+        ImportResult result = service.importProducts(stream(ndjson), DataFormat.NDJSON);
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(3);
+        assertThat(result.errors()).extracting(ImportRowError::line).containsExactly(2L, 3L, 4L);
+        assertThat(result.errors().get(0).message()).startsWith("Malformed row");
+        assertThat(result.errors().get(1).message()).contains("price");
+        assertThat(result.errors().get(2).message()).contains("categoryId");
+        assertThat(productNames()).containsExactlyInAnyOrder("Mouse", "Headset");
+    }
+
+    @Test
+    void rowRejectedByTheDatabaseDoesNotTakeItsBatchDown() throws IOException {
+        jdbcTemplate.update("ALTER TABLE products ADD CONSTRAINT rejects_marked_names CHECK (name <> 'Rejeitado')");
+        String csv = String.join("\n",
+                "name,price,categoryId",
+                "Aceito 1,1.0," + categoryId,
+                "Rejeitado,2.0," + categoryId,
+                "Aceito 2,3.0," + categoryId);
+
+        ImportResult result = service.importProducts(stream(csv), DataFormat.CSV);
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(result.errors()).singleElement().satisfies(error -> {
+            assertThat(error.line()).isEqualTo(3);
+            assertThat(error.message()).startsWith("Rejected by the database");
+        });
+        assertThat(productNames()).containsExactlyInAnyOrder("Aceito 1", "Aceito 2");
+    }
+
+    @Test
+    void reportedErrorsAreCappedButAllFailuresCounted() throws IOException {
+        StringBuilder csv = new StringBuilder("name,price,categoryId");
+        for (int i = 0; i < 5; i++) csv.append("\nInvalido ").append(i).append(",-1,").append(categoryId);
+
+        ImportResult result = service.importProducts(stream(csv.toString()), DataFormat.CSV);
+
+        assertThat(result.failed()).isEqualTo(5);
+        assertThat(result.errors()).hasSize(3);
+    }
+
+    @Test
+    void csvWithoutTheRequiredColumnsIsRejected() {
+        assertThatThrownBy(() -> service.importProducts(stream("name,description\nCabo,Longo"), DataFormat.CSV))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> service.importProducts(stream(""), DataFormat.CSV))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private List<String> productNames() {
+        return jdbcTemplate.queryForList("SELECT name FROM products", String.class);
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,105 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.event.ChangeType;
+import barbosa.guilherme.backend.event.EntitiesImportedEvent;
+import barbosa.guilherme.backend.event.EntityChangedEvent;
+import barbosa.guilherme.backend.event.EntityType;
+import barbosa.guilherme.backend.repository.ProductRepository;
+import barbosa.guilherme.backend.responses.ProductResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTests {
+
+    private ProductRepository repository;
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ProductRepository.class);
+        when(repository.findAllResponses()).thenReturn(List.of(
+                product(1, "Teclado mecânico", "Switches azuis", 10, "Periféricos"),
+                product(2, "Mouse sem fio", "Acompanha teclado", 10, "Periféricos"),
+                product(3, "Monitor 24", "Tela IPS", 20, "Monitores")));
+        index = new ProductSearchIndex(repository);
+        index.rebuild();
+    }
+
+    @Test
+    void matchesPrefixesIgnoringCaseAndAccents() {
+        assertThat(ids(index.search("MECANI", 10))).containsExactly(1L);
+        assertThat(ids(index.search("mon", 10))).containsExactly(3L);
+    }
+
+    @Test
+    void requiresEveryTermToMatch() {
+        assertThat(ids(index.search("teclado switches", 10))).containsExactly(1L);
+        assertThat(ids(index.search("teclado tela", 10))).isEmpty();
+    }
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        assertThat(ids(index.search("teclado", 10))).containsExactly(1L, 2L);
+        assertThat(ids(index.search("teclado", 1))).containsExactly(1L);
+    }
+
+    @Test
+    void blankQueryReturnsNothing() {
+        assertThat(index.search("  --  ", 10)).isEmpty();
+    }
+
+    @Test
+    void updatedProductDropsItsOldTerms() {
+        when(repository.findResponseById(3)).thenReturn(Optional.of(product(3, "Webcam HD", "Tela IPS", 20, "Monitores")));
+
+        index.onEntityChanged(new EntityChangedEvent(EntityType.PRODUCT, 3, ChangeType.UPDATED));
+
+        assertThat(index.search("monitor", 10)).isEmpty();
+        assertThat(ids(index.search("webcam", 10))).containsExactly(3L);
+    }
+
+    @Test
+    void deletedProductIsNoLongerFound() {
+        index.onEntityChanged(new EntityChangedEvent(EntityType.PRODUCT, 2, ChangeType.DELETED));
+
+        assertThat(ids(index.search("teclado", 10))).containsExactly(1L);
+        assertThat(index.search("mouse", 10)).isEmpty();
+    }
+
+    @Test
+    void categoryRenameRefreshesEmbeddedCategory() {
+        when(repository.findResponsesByCategoryId(20)).thenReturn(List.of(product(3, "Monitor 24", "Tela IPS", 20, "Telas")));
+
+        index.onEntityChanged(new EntityChangedEvent(EntityType.CATEGORY, 20, ChangeType.UPDATED));
+
+        assertThat(index.search("monitor", 10)).singleElement()
+                .satisfies(product -> assertThat(product.category().name()).isEqualTo("Telas"));
+    }
+
+    @Test
+    void importedProductsAreIndexed() {
+        List<Long> ids = List.of(4L, 5L);
+        when(repository.findResponsesByIdIn(ids)).thenReturn(List.of(
+                product(4, "Cadeira gamer", null, 30, "Móveis"),
+                product(5, "Mesa gamer", null, 30, "Móveis")));
+
+        index.onEntitiesImported(new EntitiesImportedEvent(EntityType.PRODUCT, ids));
+
+        assertThat(ids(index.search("gamer", 10))).containsExactlyInAnyOrder(4L, 5L);
+    }
+
+    private static ProductResponse product(long id, String name, String description, long categoryId, String category) {
+        return new ProductResponse(id, name, description, 10.0, 0L, categoryId, category, category.toLowerCase());
+    }
+
+    private static List<Long> ids(List<ProductResponse> products) {
+        return products.stream().map(ProductResponse::id).toList();
+    }
+}
@@ -0,0 +1,268 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.model.Category;
+import barbosa.guilherme.backend.model.Product;
+import barbosa.guilherme.backend.model.Stock;
+import barbosa.guilherme.backend.repository.CategoryRepository;
+import barbosa.guilherme.backend.repository.ProductRepository;
+import barbosa.guilherme.backend.repository.StockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({StockLedgerService.class, ChangeLogService.class, TableVersionRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:counter;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "stock.ledger.snapshot-lag-ms=0"
+})
+class StockCounterEngineTests {
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private StockLedgerService ledgerService;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private TableVersionRegistry versions;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path journalDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private long stockId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Category category = categoryRepository.save(Category.builder().name("Category").slug("category").build());
+        Product product = productRepository.save(Product.builder().name("Product").price(1.0).category(category).build());
+        stockId = stockRepository.save(Stock.builder().product(product).quantity(10).build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("stock_movements", "stock_counter_watermark", "change_log", "stock", "products", "categories")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void flushWritesCoalescedDeltas() {
+        StockCounterEngine engine = engine();
+
+        engine.adjust(stockId, 5, "ADJUST");
+        engine.adjust(stockId, -3, "ADJUST");
+        assertThat(databaseQuantity()).isEqualTo(10);
+
+        engine.flush();
+        assertThat(databaseQuantity()).isEqualTo(12);
+        assertThat(journalFiles()).hasSize(1);
+    }
+
+    @Test
+    void flushLogsOneChangePerFlushedRow() {
+        StockCounterEngine engine = engine();
+        for (int i = 0; i < 5; i++) engine.adjust(stockId, 1, "ADJUST");
+
+        engine.flush();
+
+        assertThat(jdbcTemplate.queryForList("SELECT entity_id FROM change_log WHERE entity_type = 'STOCK'", Long.class))
+                .containsExactly(stockId);
+    }
+
+    @Test
+    void replayAppliesDeltasLostInACrash() {
+        engine().adjust(stockId, 7, "ADJUST");
+
+        engine();
+
+        assertThat(databaseQuantity()).isEqualTo(17);
+    }
+
+    @Test
+    void concurrentAdjustmentsAreAllJournaled() throws Exception {
+        StockCounterEngine engine = engine();
+        List<Future<?>> adjusters = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                adjusters.add(executor.submit(() -> {
+                    for (int n = 0; n < 500; n++) engine.adjust(stockId, 1, "ADJUST");
+                }));
+            }
+            for (Future<?> adjuster : adjusters) adjuster.get(30, TimeUnit.SECONDS);
+        }
+        assertThat(engine.currentQuantity(stockId)).hasValue(4010);
+
+        engine();
+
+        assertThat(databaseQuantity()).isEqualTo(4010);
+    }
+
+    @Test
+    void replayKeepsReasonAndUserOfEachMovement() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("maria", null, List.of()));
+        try {
+            StockCounterEngine engine = engine();
+            engine.adjust(stockId, 2, "SALE");
+            engine.adjust(stockId, 3, "RESTOCK");
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        engine();
+
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT reason, username, delta FROM stock_movements WHERE stock_id = ? ORDER BY reason", stockId))
+                .extracting(row -> List.of(row.get("reason"), row.get("username"), ((Number) row.get("delta")).longValue()))
+                .containsExactly(List.of("RESTOCK", "maria", 3L), List.of("SALE", "maria", 2L));
+    }
+
+    @Test
+    void replaySkipsSegmentsAlreadyApplied() throws IOException {
+        StockCounterEngine engine = engine();
+        engine.adjust(stockId, 4, "ADJUST");
+        Path backup = Files.createTempDirectory("journal-backup");
+        for (Path segment : journalFiles()) Files.copy(segment, backup.resolve(segment.getFileName()));
+
+        engine.flush();
+        // Crash after the batch committed but before its segments were deleted
+        for (Path segment : journalFiles()) Files.delete(segment);
+        try (var saved = Files.list(backup)) {
+            for (Path segment : saved.toList()) Files.copy(segment, journalDir.resolve(segment.getFileName()));
+        }
+
+        engine();
+
+        assertThat(databaseQuantity()).isEqualTo(14);
+    }
+
+    @Test
+    void segmentNumbersContinuePastTheWatermark() {
+        StockCounterEngine first = engine();
+        first.adjust(stockId, 1, "ADJUST");
+        first.flush();
+        first.shutdown();
+        try (var files = Files.list(journalDir)) {
+            files.forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+
+        engine().adjust(stockId, 6, "ADJUST");
+        engine();
+
+        assertThat(databaseQuantity()).isEqualTo(17);
+    }
+
+    @Test
+    void setDuringConcurrentAdjustmentsKeepsMemoryAndTableInStep() throws Exception {
+        StockCounterEngine engine = engine();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<?>> adjusters = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(5)) {
+            for (int i = 0; i < 4; i++) {
+                adjusters.add(executor.submit(() -> {
+                    for (int n = 0; n < 500; n++) engine.adjust(stockId, 1, "ADJUST");
+                }));
+            }
+            Future<?> flusher = executor.submit(() -> {
+                while (running.get()) engine.flush();
+            });
+            for (int n = 0; n < 50; n++) {
+                engine.setAfterCommit(stockId, 1000 + n);
+                engine.discardAfterCommit(stockId);
+            }
+            engine.setAfterCommit(stockId, 500);
+            for (Future<?> adjuster : adjusters) adjuster.get(30, TimeUnit.SECONDS);
+            running.set(false);
+            flusher.get(30, TimeUnit.SECONDS);
+        }
+
+        engine.flush();
+        assertThat(engine.currentQuantity(stockId)).hasValue(databaseQuantity());
+    }
+
+    @Test
+    void setInsideARolledBackTransactionIsNotApplied() {
+        StockCounterEngine engine = engine();
+        engine.adjust(stockId, 1, "ADJUST");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            engine.setAfterCommit(stockId, 99);
+            status.setRollbackOnly();
+        });
+
+        assertThat(engine.currentQuantity(stockId)).hasValue(11);
+    }
+
+    private StockCounterEngine engine() {
+        StockCounterEngine engine = new StockCounterEngine(stockRepository, ledgerService, changeLogService,
+                versions, jdbcTemplate, transactionManager, journalDir.toString());
+        engine.replayJournal();
+        return engine;
+    }
+
+    private long databaseQuantity() {
+        return stockRepository.findQuantityById(stockId).orElseThrow();
+    }
+
+    private List<Path> journalFiles() {
+        try (var files = Files.list(journalDir)) {
+            return files.toList();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
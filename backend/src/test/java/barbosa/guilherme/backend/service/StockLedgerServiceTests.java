@@ -0,0 +1,115 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.repository.StockLedgerGapRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(StockLedgerService.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledger;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "stock.ledger.snapshot-lag-ms=0"
+})
+class StockLedgerServiceTests {
+    private static final long STOCK_ID = 1;
+
+    @Autowired
+    private StockLedgerService ledgerService;
+
+    @Autowired
+    private StockLedgerGapRepository gapRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private LocalDateTime createdAt;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        createdAt = LocalDateTime.now().minusMinutes(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("stock_movements", "stock_snapshots", "stock_ledger_gaps")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void snapshotAddsUpTheWindow() {
+        movement(1, 10);
+        movement(2, -3);
+
+        ledgerService.takeSnapshots();
+
+        assertThat(ledgerService.quantityAt(STOCK_ID, LocalDateTime.now())).isEqualTo(7);
+        assertThat(gapRepository.count()).isZero();
+    }
+
+    @Test
+    void movementCommittedLateBelowTheWatermarkIsFolded() {
+        movement(1, 10);
+        movement(3, 5);
+        ledgerService.takeSnapshots();
+        assertThat(gapRepository.findAll()).singleElement()
+                .satisfies(gap -> assertThat(List.of(gap.getFromId(), gap.getToId())).containsExactly(2L, 2L));
+
+        // The transaction holding id 2 commits after the round above
+        movement(2, 4);
+        assertThat(ledgerService.quantityAt(STOCK_ID, LocalDateTime.now())).isEqualTo(19);
+
+        ledgerService.takeSnapshots();
+        assertThat(gapRepository.count()).isZero();
+        assertThat(ledgerService.quantityAt(STOCK_ID, LocalDateTime.now())).isEqualTo(19);
+
+        movement(4, 1);
+        ledgerService.takeSnapshots();
+        assertThat(ledgerService.quantityAt(STOCK_ID, LocalDateTime.now())).isEqualTo(20);
+    }
+
+    @Test
+    void gapIsSplitAroundLateMovements() {
+        movement(1, 1);
+        movement(5, 1);
+        ledgerService.takeSnapshots();
+
+        movement(3, 1);
+        ledgerService.takeSnapshots();
+
+        assertThat(gapRepository.findAll())
+                .extracting(gap -> List.of(gap.getFromId(), gap.getToId()))
+                .containsExactlyInAnyOrder(List.of(2L, 2L), List.of(4L, 4L));
+        assertThat(ledgerService.quantityAt(STOCK_ID, LocalDateTime.now())).isEqualTo(3);
+    }
+
+    private void movement(long id, long delta) {
+        jdbcTemplate.update("INSERT INTO stock_movements (id, stock_id, delta, reason, username, created_at) "
+                + "VALUES (?, ?, ?, 'ADJUST', NULL, ?)", id, STOCK_ID, delta, Timestamp.valueOf(createdAt));
+    }
+}
@@ -0,0 +1,183 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.exception.BadRequestException;
+import barbosa.guilherme.backend.model.Category;
+import barbosa.guilherme.backend.model.Product;
+import barbosa.guilherme.backend.model.Stock;
+import barbosa.guilherme.backend.repository.CategoryRepository;
+import barbosa.guilherme.backend.repository.FieldsetRepository;
+import barbosa.guilherme.backend.repository.ProductRepository;
+import barbosa.guilherme.backend.repository.StockRepository;
+import barbosa.guilherme.backend.requests.StockAdjustRequestBody;
+import barbosa.guilherme.backend.requests.StockPostRequestBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({StockService.class, StockLedgerService.class, ChangeLogService.class, FieldsetRepository.class,
+        OptimisticRetryExecutor.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "sync.settle-lag-ms=0"
+})
+class StockServiceTests {
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate jdbcTemplate;
+    private long productId;
+    private long stockId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Category category = categoryRepository.save(Category.builder().name("Category").slug("category").build());
+        Product product = productRepository.save(Product.builder().name("Product").price(1.0).category(category).build());
+        productId = product.getId();
+        stockId = stockRepository.save(Stock.builder().product(product).quantity(10).build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("stock_movements", "change_log", "stock", "products", "categories")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void adjustAppliesTheDeltaAndRecordsIt() {
+        assertThat(stockService.adjust(stockId, adjustment(-4)).quantity()).isEqualTo(6);
+
+        assertThat(quantity()).isEqualTo(6);
+        assertThat(movements()).isEqualTo(1);
+        assertThat(changeLogRows()).isEqualTo(1);
+    }
+
+    @Test
+    void adjustBelowZeroIsRejectedWithoutTouchingTheRow() {
+        assertThatThrownBy(() -> stockService.adjust(stockId, adjustment(-11)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+        assertThat(quantity()).isEqualTo(10);
+        assertThat(movements()).isZero();
+        assertThat(changeLogRows()).isZero();
+    }
+
+    @Test
+    void adjustRollsBackWithTheSurroundingTransaction() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertThat(stockService.adjust(stockId, adjustment(5)).quantity()).isEqualTo(15);
+            status.setRollbackOnly();
+        });
+
+        assertThat(quantity()).isEqualTo(10);
+        assertThat(movements()).isZero();
+        assertThat(changeLogRows()).isZero();
+    }
+
+    @Test
+    void adjustOfMissingStockIsABadRequest() {
+        assertThatThrownBy(() -> stockService.adjust(stockId + 1, adjustment(1))).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void deleteOfMissingStockLogsNoTombstone() {
+        assertThatThrownBy(() -> stockService.deleteById(stockId + 1)).isInstanceOf(BadRequestException.class);
+
+        assertThat(changeLogRows()).isZero();
+    }
+
+    @Test
+    void deleteRecordsTheRemovedQuantityAndATombstone() {
+        stockService.deleteById(stockId);
+
+        assertThat(stockRepository.existsById(stockId)).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT delta FROM stock_movements WHERE reason = 'DELETED'", Long.class))
+                .isEqualTo(-10);
+        assertThat(jdbcTemplate.queryForObject("SELECT change_type FROM change_log", String.class)).isEqualTo("DELETED");
+    }
+
+    @Test
+    void createAcceptsAProductGivenOnlyByItsId() {
+        Stock created = stockService.save(creation(productId));
+
+        assertThat(stockRepository.findById(created.getId())).hasValueSatisfying(stock -> {
+            assertThat(stock.getProduct().getId()).isEqualTo(productId);
+            assertThat(stock.getQuantity()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    void createForAnUnknownProductIsABadRequest() {
+        assertThatThrownBy(() -> stockService.save(creation(productId + 1))).isInstanceOf(BadRequestException.class);
+    }
+
+    // Same shape the stock page posts: the product reduced to its id
+    private static StockPostRequestBody creation(long productId) {
+        StockPostRequestBody request = new StockPostRequestBody();
+        request.setProduct(Product.builder().id(productId).build());
+        request.setQuantity(3);
+        return request;
+    }
+
+    private static StockAdjustRequestBody adjustment(int amount) {
+        StockAdjustRequestBody body = new StockAdjustRequestBody();
+        body.setAmount(amount);
+        return body;
+    }
+
+    private int quantity() {
+        return stockRepository.findQuantityById(stockId).orElseThrow();
+    }
+
+    private int movements() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_movements", Integer.class);
+    }
+
+    private int changeLogRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM change_log", Integer.class);
+    }
+}
@@ -0,0 +1,125 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.event.ChangeType;
+import barbosa.guilherme.backend.event.EntityChangedEvent;
+import barbosa.guilherme.backend.event.EntityType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(TableVersionRegistry.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:versions;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class TableVersionRegistryTests {
+
+    @Autowired
+    private TableVersionRegistry registry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(dataSource).update("DELETE FROM table_version_stripes");
+        registry.createCounters();
+    }
+
+    @Test
+    void committedChangesBumpEachTableOnce() {
+        String before = registry.etag(EntityType.PRODUCT, EntityType.CATEGORY);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            registry.onEntityChanged(new EntityChangedEvent(EntityType.PRODUCT, 1, ChangeType.UPDATED));
+            registry.onEntityChanged(new EntityChangedEvent(EntityType.PRODUCT, 2, ChangeType.UPDATED));
+        });
+
+        assertThat(registry.etag(EntityType.PRODUCT, EntityType.CATEGORY)).isNotEqualTo(before);
+        assertThat(version(EntityType.PRODUCT) - version(EntityType.CATEGORY)).isEqualTo(1);
+    }
+
+    @Test
+    void rolledBackChangesLeaveTheEtagAlone() {
+        String before = registry.etag(EntityType.STOCK);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            registry.onEntityChanged(new EntityChangedEvent(EntityType.STOCK, 1, ChangeType.UPDATED));
+            status.setRollbackOnly();
+        });
+
+        assertThat(registry.etag(EntityType.STOCK)).isEqualTo(before);
+    }
+
+    @Test
+    void deferredAdjustmentsChangeTheEtagWithoutWriting() {
+        String before = registry.etag(EntityType.STOCK);
+        long stored = version(EntityType.STOCK);
+
+        registry.onEntityChanged(new EntityChangedEvent(EntityType.STOCK, 1, ChangeType.UPDATED, true));
+
+        assertThat(registry.etag(EntityType.STOCK)).isNotEqualTo(before);
+        assertThat(version(EntityType.STOCK)).isEqualTo(stored);
+    }
+
+    @Test
+    void anotherNodeSeesTheSameEtag() {
+        registry.onEntityChanged(new EntityChangedEvent(EntityType.CATEGORY, 1, ChangeType.CREATED));
+
+        TableVersionRegistry otherNode = new TableVersionRegistry(new JdbcTemplate(dataSource));
+        otherNode.refresh();
+        assertThat(otherNode.etag(EntityType.CATEGORY)).isEqualTo(registry.etag(EntityType.CATEGORY));
+    }
+
+    @Test
+    void etagIsServedFromMemoryUntilTheNextRefresh() {
+        String before = registry.etag(EntityType.PRODUCT);
+        // Another node commits a product change
+        new JdbcTemplate(dataSource).update(
+                "UPDATE table_version_stripes SET version = version + 1 WHERE entity_type = 'PRODUCT' AND stripe = 3");
+
+        assertThat(registry.etag(EntityType.PRODUCT)).isEqualTo(before);
+        registry.refresh();
+        assertThat(registry.etag(EntityType.PRODUCT)).isNotEqualTo(before);
+    }
+
+    @Test
+    void concurrentWritersSpreadOverTheStripes() {
+        for (int i = 0; i < 64; i++) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    registry.onEntityChanged(new EntityChangedEvent(EntityType.STOCK, 1, ChangeType.UPDATED)));
+        }
+
+        assertThat(new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM table_version_stripes "
+                + "WHERE entity_type = 'STOCK' AND stripe > 0 AND version > 0", Integer.class)).isGreaterThan(1);
+        assertThat(version(EntityType.STOCK) - version(EntityType.USER)).isEqualTo(64);
+    }
+
+    private long version(EntityType type) {
+        return new JdbcTemplate(dataSource).queryForObject(
+                "SELECT SUM(version) FROM table_version_stripes WHERE entity_type = ?", Long.class, type.name());
+    }
+}
@@ -0,0 +1,96 @@
+package barbosa.guilherme.backend.service;
+
+import barbosa.guilherme.backend.model.User;
+import barbosa.guilherme.backend.repository.UserRepository;
+import barbosa.guilherme.backend.requests.UserPostRequestBody;
+import barbosa.guilherme.backend.responses.TokenResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:users;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "management.server.port=0"
+})
+class UserServiceTests {
+    private static final String EMAIL = "maria@example.com";
+    private static final AtomicReference<String> savingThread = new AtomicReference<>();
+    private static final AtomicBoolean savedInTransaction = new AtomicBoolean();
+
+    @Autowired
+    private UserService service;
+
+    @Autowired
+    private UserRepository repository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @AfterEach
+    void tearDown() {
+        repository.findByEmail(EMAIL).ifPresent(repository::delete);
+    }
+
+    @Test
+    void registrationIsSavedInATransactionOffTheHashingPool() {
+        TokenResponse token = service.register(request("Strong123")).join();
+
+        assertThat(token).isNotNull();
+        assertThat(savedInTransaction).isTrue();
+        assertThat(savingThread.get()).doesNotStartWith("password-hashing-");
+        assertThat(repository.findByEmail(EMAIL)).hasValueSatisfying(
+                user -> assertThat(passwordEncoder.matches("Strong123", user.getPassword())).isTrue());
+    }
+
+    // Records where the repository's save runs; the Spring Data proxy itself cannot be spied on
+    @TestConfiguration
+    static class SaveRecorder {
+        @Bean
+        static BeanPostProcessor recordUserSaves() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof UserRepository)) return bean;
+                    ProxyFactory factory = new ProxyFactory(bean);
+                    factory.addAdvice((MethodInterceptor) invocation -> {
+                        if (invocation.getMethod().getName().equals("save")
+                                && invocation.getArguments()[0] instanceof User user && EMAIL.equals(user.getEmail())) {
+                            savingThread.set(Thread.currentThread().getName());
+                            savedInTransaction.set(TransactionSynchronizationManager.isActualTransactionActive());
+                        }
+                        return invocation.proceed();
+                    });
+                    return factory.getProxy();
+                }
+            };
+        }
+    }
+
+    private static UserPostRequestBody request(String password) {
+        UserPostRequestBody request = new UserPostRequestBody();
+        request.setName("Maria");
+        request.setEmail(EMAIL);
+        request.setPassword(password);
+        return request;
+    }
+}
@@ -0,0 +1,49 @@
+package barbosa.guilherme.backend.util;
+
+import barbosa.guilherme.backend.exception.BadRequestException;
+import barbosa.guilherme.backend.responses.BatchLookupResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchLookupsTests {
+
+    @Test
+    void duplicatesAndNullsAreDroppedKeepingRequestOrder() {
+        assertThat(BatchLookups.distinctIds(Arrays.asList(5L, 2L, null, 5L, 9L, 2L))).containsExactly(5L, 2L, 9L);
+    }
+
+    @Test
+    void emptyLookupIsRejected() {
+        assertThatThrownBy(() -> BatchLookups.distinctIds(null)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> BatchLookups.distinctIds(List.of())).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> BatchLookups.distinctIds(Arrays.asList((Long) null))).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void lookupIsCappedAfterDuplicatesAreRemoved() {
+        List<Long> atLimit = LongStream.rangeClosed(1, BatchLookups.MAX_IDS).boxed().toList();
+        List<Long> atLimitWithRepeats = new ArrayList<>(atLimit);
+        atLimitWithRepeats.addAll(atLimit);
+
+        assertThat(BatchLookups.distinctIds(atLimitWithRepeats)).hasSize(BatchLookups.MAX_IDS);
+        assertThatThrownBy(() -> BatchLookups.distinctIds(LongStream.rangeClosed(1, BatchLookups.MAX_IDS + 1).boxed().toList()))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void responseFollowsRequestOrderAndReportsMissingIds() {
+        BatchLookupResponse<Long> response = BatchLookupResponse.of(List.of(3L, 7L, 1L, 4L), List.of(1L, 3L, 4L),
+                Function.identity());
+
+        assertThat(response.items()).containsExactly(3L, 1L, 4L);
+        assertThat(response.missing()).containsExactly(7L);
+    }
+}
@@ -0,0 +1,118 @@
+package barbosa.guilherme.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedTtlCacheTests {
+
+    @Test
+    void secondReadIsAHit() {
+        BoundedTtlCache<Long, String> cache = new BoundedTtlCache<>(10, 60000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, key -> "v" + loads.incrementAndGet());
+        assertThat(cache.get(1L, key -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void loadThatStartedBeforeAnInvalidationIsNotStored() throws Exception {
+        BoundedTtlCache<Long, String> cache = new BoundedTtlCache<>(10, 60000);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+
+        CompletableFuture<String> staleRead = CompletableFuture.supplyAsync(() -> cache.get(1L, key -> {
+            loading.countDown();
+            await(invalidated);
+            return "old";
+        }));
+        await(loading);
+        cache.invalidateAll();
+        invalidated.countDown();
+
+        // The racing reader still gets what it loaded, but the value is not put back in the cache
+        assertThat(staleRead.get(10, TimeUnit.SECONDS)).isEqualTo("old");
+        assertThat(cache.get(1L, key -> "new")).isEqualTo("new");
+    }
+
+    @Test
+    void batchLoadThatStartedBeforeAnInvalidationIsNotStored() throws Exception {
+        BoundedTtlCache<Long, String> cache = new BoundedTtlCache<>(10, 60000);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+
+        CompletableFuture<Map<Long, String>> staleRead = CompletableFuture.supplyAsync(() -> cache.getAll(List.of(1L, 2L), keys -> {
+            loading.countDown();
+            await(invalidated);
+            return Map.of(1L, "old", 2L, "old");
+        }));
+        await(loading);
+        cache.invalidateAll();
+        invalidated.countDown();
+
+        assertThat(staleRead.get(10, TimeUnit.SECONDS)).containsOnlyKeys(1L, 2L);
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    @Test
+    void getAllLoadsOnlyTheKeysNotCached() {
+        BoundedTtlCache<Long, String> cache = new BoundedTtlCache<>(10, 60000);
+        cache.get(1L, key -> "one");
+
+        Map<Long, String> values = cache.getAll(List.of(1L, 2L, 3L), keys -> {
+            assertThat(keys).containsExactly(2L, 3L);
+            return Map.of(2L, "two");
+        });
+
+        assertThat(values).containsOnly(Map.entry(1L, "one"), Map.entry(2L, "two"));
+    }
+
+    @Test
+    void missingValuesAreNotCached() {
+        BoundedTtlCache<Long, String> cache = new BoundedTtlCache<>(10, 60000);
+
+        assertThat(cache.get(1L, key -> null)).isNull();
+        assertThat(cache.get(1L, key -> "found")).isEqualTo("found");
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedFirst() {
+        BoundedTtlCache<Long, String> cache = new BoundedTtlCache<>(2, 60000);
+        cache.get(1L, key -> "one");
+        cache.get(2L, key -> "two");
+        cache.get(1L, key -> "reloaded");
+        cache.get(3L, key -> "three");
+
+        assertThat(cache.get(1L, key -> "reloaded")).isEqualTo("one");
+        assertThat(cache.get(2L, key -> "reloaded")).isEqualTo("reloaded");
+        assertThat(cache.stats().evictions()).isEqualTo(2);
+    }
+
+    @Test
+    void expiredEntryIsLoadedAgain() throws InterruptedException {
+        BoundedTtlCache<Long, String> cache = new BoundedTtlCache<>(10, 1);
+        cache.get(1L, key -> "old");
+        Thread.sleep(5);
+
+        assertThat(cache.get(1L, key -> "new")).isEqualTo("new");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package barbosa.guilherme.backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilTests {
+    private static final String SECRET = "testSecretKeyForJwtTokenGenerationThatIsLongEnough";
+
+    @Test
+    void repeatedVerificationIsServedFromTheCache() {
+        JwtUtil jwtUtil = jwtUtil(3600000, 10);
+        String token = jwtUtil.generateToken("maria");
+
+        assertThat(jwtUtil.verify(token)).hasValueSatisfying(verified -> assertThat(verified.username()).isEqualTo("maria"));
+        assertThat(jwtUtil.verify(token)).isPresent();
+
+        assertThat(jwtUtil.cacheMisses()).isEqualTo(1);
+        assertThat(jwtUtil.cacheHits()).isEqualTo(1);
+        assertThat(jwtUtil.cacheSize()).isEqualTo(1);
+    }
+
+    @Test
+    void rolesBecomeAuthorities() {
+        JwtUtil jwtUtil = jwtUtil(3600000, 10);
+
+        assertThat(jwtUtil.verify(jwtUtil.generateToken("maria", List.of("ADMIN"))))
+                .hasValueSatisfying(verified -> assertThat(verified.authorities())
+                        .extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_ADMIN"));
+    }
+
+    @Test
+    void tamperedTokenIsRejectedAndNotCached() {
+        JwtUtil jwtUtil = jwtUtil(3600000, 10);
+        String token = jwtUtil.generateToken("maria");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThat(jwtUtil.verify(tampered)).isEmpty();
+        assertThat(jwtUtil.verify("not-a-token")).isEmpty();
+        assertThat(jwtUtil.cacheSize()).isZero();
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        JwtUtil jwtUtil = jwtUtil(-1000, 10);
+
+        assertThat(jwtUtil.verify(jwtUtil.generateToken("maria"))).isEmpty();
+        assertThat(jwtUtil.cacheSize()).isZero();
+    }
+
+    @Test
+    void fullCacheSkipsCachingInsteadOfEvictingLiveTokens() {
+        JwtUtil jwtUtil = jwtUtil(3600000, 1);
+        String first = jwtUtil.generateToken("maria");
+        String second = jwtUtil.generateToken("joao");
+
+        jwtUtil.verify(first);
+        assertThat(jwtUtil.verify(second)).isPresent();
+        assertThat(jwtUtil.verify(second)).isPresent();
+
+        assertThat(jwtUtil.cacheSize()).isEqualTo(1);
+        assertThat(jwtUtil.verify(first)).isPresent();
+        assertThat(jwtUtil.cacheHits()).isEqualTo(1);
+    }
+
+    @Test
+    void validateTokenChecksTheSubject() {
+        JwtUtil jwtUtil = jwtUtil(3600000, 10);
+        String token = jwtUtil.generateToken("maria");
+
+        assertThat(jwtUtil.validateToken(token, "maria")).isTrue();
+        assertThat(jwtUtil.validateToken(token, "joao")).isFalse();
+    }
+
+    private static JwtUtil jwtUtil(int expirationMs, int cacheMaxSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationInMs", expirationMs);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
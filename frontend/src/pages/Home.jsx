@@ -1,7 +1,7 @@
 import React, { useState, useEffect } from 'react';
 import { Package, Layers, ShoppingCart, DollarSign, TrendingUp, AlertCircle, ArrowUp } from 'lucide-react';
 import Navbar from '../components/Navbar';
-import { productService, categoryService, stockService } from '../services/api';
+import { dashboardService } from '../services/api';
 
 const Home = () => {
   const [stats, setStats] = useState({
@@ -21,28 +21,17 @@ const Home = () => {
   const loadDashboardData = async () => {
     try {
       setLoading(true);
-      const [products, categories, stock] = await Promise.all([
-        productService.getAll(),
-        categoryService.getAll(),
-        stockService.getAll()
-      ]);
-
-      const totalValue = stock.reduce((acc, item) => {
-        const price = item.product?.price || 0;
-        return acc + (item.quantity || 0) * price;
-      }, 0);
-
-      const lowStock = stock.filter(item => (item.quantity || 0) <= 5).length;
+      const { totals, recentProducts } = await dashboardService.get();
 
       setStats({
-        totalProducts: products.length,
-        totalCategories: categories.length,
-        totalStock: stock.reduce((acc, item) => acc + (item.quantity || 0), 0),
-        totalValue,
-        lowStock
+        totalProducts: totals.products,
+        totalCategories: totals.categories,
+        totalStock: totals.quantity,
+        totalValue: totals.value,
+        lowStock: totals.lowStock
       });
 
-      setRecentProducts(products.slice(-5).reverse());
+      setRecentProducts(recentProducts);
     } catch (error) {
       console.error('Erro ao carregar dados do dashboard:', error);
     } finally {
@@ -2,11 +2,31 @@ import React, { useState, useEffect } from 'react';
 import { Plus, Edit2, Trash2, X, ShoppingCart, Package, AlertCircle, CheckCircle } from 'lucide-react';
 import Navbar from '../components/Navbar';
 import Input from '../components/Input';
-import { stockService, productService } from '../services/api';
+import { stockService, productService, dashboardService, changeFeed } from '../services/api';
+
+// Linhas do estoque no formato enxuto do /dashboard
+const toRow = (stock) => ({
+    id: stock.id,
+    quantity: stock.quantity,
+    productId: stock.product?.id,
+    productName: stock.product?.name,
+    productPrice: stock.product?.price
+});
+
+// Substitui ou acrescenta os registros retornados por getByIds e remove os que vieram em "missing"
+const mergeById = (items, found, missing) => {
+    const byId = new Map(found.map((item) => [item.id, item]));
+    const merged = items
+        .filter((item) => !missing.includes(item.id))
+        .map((item) => byId.get(item.id) || item);
+    const known = new Set(items.map((item) => item.id));
+    return [...merged, ...found.filter((item) => !known.has(item.id))];
+};
 
 const Stock = () => {
     const [stockItems, setStockItems] = useState([]);
-    const [products, setProducts] = useState([]);
+    // Produtos só são buscados quando o modal abre; null indica que ainda não foram carregados
+    const [products, setProducts] = useState(null);
     const [loading, setLoading] = useState(true);
     const [showModal, setShowModal] = useState(false);
     const [editingStock, setEditingStock] = useState(null);
@@ -16,26 +36,60 @@ const Stock = () => {
     });
     const [errors, setErrors] = useState({});
     const [deleteConfirm, setDeleteConfirm] = useState(null);
-    const [productsLoading, setProductsLoading] = useState(true);
+    const [productsLoading, setProductsLoading] = useState(false);
 
     useEffect(() => {
         loadData();
     }, []);
 
+    // Atualiza apenas o registro afetado quando outro usuário altera estoque ou produtos
+    useEffect(() => {
+        const unsubscribe = changeFeed.subscribe((event) => {
+            if (event.type === 'STOCK' && event.change === 'DELETED') {
+                setStockItems((items) => items.filter((item) => item.id !== event.id));
+            } else if (event.type === 'STOCK') {
+                stockService.getByIds([event.id])
+                    .then(({ items, missing }) => setStockItems((rows) => mergeById(rows, items.map(toRow), missing)))
+                    .catch(() => {});
+            } else if (event.type === 'PRODUCT' && event.change === 'DELETED') {
+                setProducts((items) => items && items.filter((item) => item.id !== event.id));
+            } else if (event.type === 'PRODUCT') {
+                productService.getByIds([event.id])
+                    .then(({ items, missing }) => {
+                        const product = items[0];
+                        if (product) {
+                            setStockItems((rows) => rows.map((row) => row.productId === product.id
+                                ? { ...row, productName: product.name, productPrice: product.price }
+                                : row));
+                        }
+                        setProducts((current) => current && mergeById(current, items, missing));
+                    })
+                    .catch(() => {});
+            }
+        }, loadData);
+        return unsubscribe;
+    }, []);
+
     const loadData = async () => {
         try {
             setLoading(true);
-            setProductsLoading(true);
-            const [stockData, productsData] = await Promise.all([
-                stockService.getAll(),
-                productService.getAll()
-            ]);
-            setStockItems(stockData);
-            setProducts(productsData);
+            const { stock } = await dashboardService.get();
+            setStockItems(stock);
+            setProducts(null);
         } catch (error) {
             console.error('Erro ao carregar dados:', error);
         } finally {
             setLoading(false);
+        }
+    };
+
+    const loadProducts = async () => {
+        try {
+            setProductsLoading(true);
+            setProducts(await productService.getAll('id,name,price'));
+        } catch (error) {
+            setErrors({ general: error.message });
+        } finally {
             setProductsLoading(false);
         }
     };
@@ -89,7 +143,7 @@ const Stock = () => {
         if (stockItem) {
             setEditingStock(stockItem);
             setFormData({
-                productId: stockItem.product?.id?.toString() || '',
+                productId: stockItem.productId?.toString() || '',
                 quantity: stockItem.quantity?.toString() || ''
             });
         } else {
@@ -98,6 +152,7 @@ const Stock = () => {
         }
         setErrors({});
         setShowModal(true);
+        if (!products && !productsLoading) loadProducts();
     };
 
     const closeModal = () => {
@@ -107,23 +162,13 @@ const Stock = () => {
         setErrors({});
     };
 
-    const getProductName = (productId) => {
-        const product = products.find(p => p.id === productId);
-        return product?.name || 'Produto desconhecido';
-    };
-
-    const getProductPrice = (productId) => {
-        const product = products.find(p => p.id === productId);
-        return product?.price || 0;
-    };
-
     const isLowStock = (quantity) => quantity <= 5;
     const isOutOfStock = (quantity) => quantity === 0;
 
     const totalItems = stockItems.reduce((acc, item) => acc + (item.quantity || 0), 0);
     const lowStockCount = stockItems.filter(item => item.quantity <= 5).length;
     const totalValue = stockItems.reduce((acc, item) => {
-        return acc + (item.quantity || 0) * getProductPrice(item.product?.id);
+        return acc + (item.quantity || 0) * (item.productPrice || 0);
     }, 0);
 
     return (
@@ -182,7 +227,7 @@ const Stock = () => {
                     </div>
                 </div>
 
-                {loading || productsLoading ? (
+                {loading ? (
                     <div className="loading-container">
                         <div className="spinner"></div>
                         <p>Carregando estoque...</p>
@@ -219,8 +264,8 @@ const Stock = () => {
                                                 <div className="product-info">
                                                     <Package className="w-4 h-4" />
                                                     <div>
-                                                        <span className="product-name">{getProductName(item.product?.id)}</span>
-                                                        <span className="product-price">R$ {getProductPrice(item.product?.id).toFixed(2).replace('.', ',')}</span>
+                                                        <span className="product-name">{item.productName || 'Produto desconhecido'}</span>
+                                                        <span className="product-price">R$ {(item.productPrice || 0).toFixed(2).replace('.', ',')}</span>
                                                     </div>
                                                 </div>
                                             </td>
@@ -297,8 +342,8 @@ const Stock = () => {
                                     onChange={(e) => setFormData({ ...formData, productId: e.target.value })}
                                     required
                                 >
-                                    <option value="">Selecione um produto</option>
-                                    {products.map((product) => (
+                                    <option value="">{productsLoading ? 'Carregando produtos...' : 'Selecione um produto'}</option>
+                                    {(products || []).map((product) => (
                                         <option key={product.id} value={product.id}>
                                             {product.name} - R$ {product.price?.toFixed(2).replace('.', ',')}
                                         </option>
@@ -42,6 +42,15 @@ export const categoryService = {
         return handleResponse(response);
     },
 
+    // Busca vários registros em uma única requisição; ids não encontrados voltam em "missing"
+    getByIds: async (ids) => {
+        const response = await fetch(`${API_BASE}/categories/find?ids=${ids.join(',')}`, {
+            method: 'GET',
+            headers: getAuthHeaders()
+        });
+        return handleResponse(response);
+    },
+
     create: async (categoryData) => {
         const response = await fetch(`${API_BASE}/categories/add`, {
             method: 'POST',
@@ -71,8 +80,25 @@ export const categoryService = {
 
 // ==================== PRODUCTS ====================
 export const productService = {
-    getAll: async () => {
-        const response = await fetch(`${API_BASE}/products`, {
+    // fields (ex.: 'id,name') limita as colunas retornadas pelo backend
+    getAll: async (fields) => {
+        const query = fields ? `?fields=${encodeURIComponent(fields)}` : '';
+        const response = await fetch(`${API_BASE}/products${query}`, {
+            method: 'GET',
+            headers: getAuthHeaders()
+        });
+        return handleResponse(response);
+    },
+
+    getPage: async ({ cursor, size, categoryId, minPrice, maxPrice, name } = {}) => {
+        const params = new URLSearchParams();
+        if (cursor) params.append('cursor', cursor);
+        if (size) params.append('size', size);
+        if (categoryId) params.append('categoryId', categoryId);
+        if (minPrice != null) params.append('minPrice', minPrice);
+        if (maxPrice != null) params.append('maxPrice', maxPrice);
+        if (name) params.append('name', name);
+        const response = await fetch(`${API_BASE}/products/page?${params}`, {
             method: 'GET',
             headers: getAuthHeaders()
         });
@@ -87,6 +113,15 @@ export const productService = {
         return handleResponse(response);
     },
 
+    // Busca vários registros em uma única requisição; ids não encontrados voltam em "missing"
+    getByIds: async (ids) => {
+        const response = await fetch(`${API_BASE}/products/find?ids=${ids.join(',')}`, {
+            method: 'GET',
+            headers: getAuthHeaders()
+        });
+        return handleResponse(response);
+    },
+
     create: async (productData) => {
         const response = await fetch(`${API_BASE}/products/add`, {
             method: 'POST',
@@ -124,6 +159,14 @@ export const stockService = {
         return handleResponse(response);
     },
 
+    getByIds: async (ids) => {
+        const response = await fetch(`${API_BASE}/stock/find?ids=${ids.join(',')}`, {
+            method: 'GET',
+            headers: getAuthHeaders()
+        });
+        return handleResponse(response);
+    },
+
     create: async (stockData) => {
         const response = await fetch(`${API_BASE}/stock/add`, {
             method: 'POST',
@@ -187,10 +230,46 @@ export const userService = {
     }
 };
 
+// ==================== DASHBOARD ====================
+// Totais, estoque e produtos recentes em uma única chamada
+export const dashboardService = {
+    get: async () => {
+        const response = await fetch(`${API_BASE}/dashboard`, {
+            method: 'GET',
+            headers: getAuthHeaders()
+        });
+        return handleResponse(response);
+    }
+};
+
+// ==================== SYNC ====================
+// Retorna { version, changes: { PRODUCT: { changed, deleted }, ... }, hasMore } desde a versão informada
+export const syncService = {
+    since: async (version = 0) => {
+        const response = await fetch(`${API_BASE}/sync?since=${version}`, {
+            method: 'GET',
+            headers: getAuthHeaders()
+        });
+        return handleResponse(response);
+    }
+};
+
+// ==================== CHANGE FEED ====================
+// Eventos: { type: 'STOCK' | 'PRODUCT' | 'CATEGORY', id, change: 'CREATED' | 'UPDATED' | 'DELETED' }
+export const changeFeed = {
+    subscribe: (onChange, onResync) => {
+        const source = new EventSource(`${API_BASE}/stock/stream`);
+        source.addEventListener('change', (event) => onChange(JSON.parse(event.data)));
+        source.addEventListener('resync', () => onResync());
+        return () => source.close();
+    }
+};
+
 export default {
     category: categoryService,
     product: productService,
     stock: stockService,
-    user: userService
+    user: userService,
+    dashboard: dashboardService
 };
 